@@ -0,0 +1,91 @@
+/**
+ * The result of a breadth first search on a {@link CsrGraph}: the visit
+ * order, the level of every reached vertex and the BFS tree as parent
+ * links.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class BfsResult {
+
+    private final int[] order;
+    private final int[] levels;
+    private final int[] parents;
+
+    /**
+     * Create a result from the search's arrays, which are kept rather than
+     * copied.
+     *
+     * @param order the vertices in the order they were visited
+     * @param levels the level of every vertex, -1 if it was not reached
+     * @param parents the parent of every vertex, -1 for the start and for
+     * vertices that were not reached
+     */
+    BfsResult(int[] order, int[] levels, int[] parents) {
+        this.order = order;
+        this.levels = levels;
+        this.parents = parents;
+    }
+
+    /**
+     * Returns the vertices in the order they were visited. If the search
+     * stopped at a target, the target is the last vertex.
+     *
+     * @return the visit order, not a copy
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns whether a vertex was reached.
+     *
+     * @param v the vertex
+     * @return true if the search visited {@code v}
+     */
+    public boolean isReached(int v) {
+        return levels[v] >= 0;
+    }
+
+    /**
+     * Returns the number of edges on a shortest path from the start to a
+     * vertex.
+     *
+     * @param v the vertex
+     * @return the level of {@code v}, or -1 if it was not reached
+     */
+    public int getLevel(int v) {
+        return levels[v];
+    }
+
+    /**
+     * Returns the vertex from which the search first reached a vertex.
+     *
+     * @param v the vertex
+     * @return the parent of {@code v}, or -1 for the start and for vertices
+     * that were not reached
+     */
+    public int getParent(int v) {
+        return parents[v];
+    }
+
+    /**
+     * Returns a path with the fewest edges from the start to a vertex, by
+     * following parent links back from it.
+     *
+     * @param v the vertex to find a path to
+     * @return the vertices of the path, from the start to {@code v}; null if
+     * {@code v} was not reached
+     */
+    public int[] getPathTo(int v) {
+        if (levels[v] < 0) {
+            return null;
+        }
+        int[] path = new int[levels[v] + 1];
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = v;
+            v = parents[v];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,460 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel minimum spanning trees of undirected graphs by Boruvka's
+ * algorithm, for graphs too large for {@link MinimumSpanningTree} to handle
+ * on one core.
+ * <p>
+ * Every round, each component picks the lightest edge leaving it, and all
+ * the picked edges join the tree at once, so the number of components at
+ * least halves and there are at most {@code log2(V)} rounds. Both steps of
+ * a round run over the edges on a {@link ForkJoinPool}:
+ * <ul>
+ * <li>Each edge offers itself to the components at both ends. An offer is
+ * the weight and the edge id packed into one long, so the lightest edge,
+ * lowest id first among equal weights, wins a compare-and-set minimum.
+ * Breaking ties the same way everywhere keeps the picked edges free of
+ * cycles.</li>
+ * <li>Each picked edge joins its components in a union-find kept in an
+ * {@link AtomicIntegerArray}. A root is only ever hung under a smaller
+ * root, with a compare-and-set on its parent, so concurrent unions can't
+ * form a loop, and an edge picked by both its components is only added
+ * once.</li>
+ * </ul>
+ * Edges inside one component are dropped after every round, so later
+ * rounds only scan the edges that can still join the tree.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class Boruvka {
+
+    /**
+     * Indices below which a task handles a range itself instead of
+     * splitting, and the number of edges in a block when filtering.
+     */
+    private static final int GRAIN = 4096;
+
+    /**
+     * Offer of a component that no edge leaves.
+     */
+    private static final long NONE = Long.MAX_VALUE;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Boruvka() {
+    }
+
+    /**
+     * Return the minimum spanning tree of the given graph in the form of a
+     * set of Edges, computed in parallel on the common pool.
+     *
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the MST of the graph; null if the graph is disconnected
+     * @throws IllegalArgumentException if graph is null or directed
+     */
+    public static <T> Set<Edge<T>> minimumSpanningTree(Graph<T> graph) {
+        return minimumSpanningTree(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return the minimum spanning tree of the given graph in the form of a
+     * set of Edges, computed in parallel on the given pool. Where several
+     * trees have the minimum weight, the one returned prefers edges that
+     * come earlier in the edge list.
+     *
+     * @param graph the Graph we are searching
+     * @param pool the pool to run on
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the MST of the graph; null if the graph is disconnected
+     * @throws IllegalArgumentException if any input is null, or if graph is
+     *                                  directed
+     */
+    public static <T> Set<Edge<T>> minimumSpanningTree(Graph<T> graph,
+                                                       ForkJoinPool pool) {
+        if ((graph == null) || (pool == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Graph must be undirected");
+        }
+
+        VertexIndex<T> index = new VertexIndex<>(graph);
+        List<Edge<T>> edges = new ArrayList<>(graph.getEdgeList());
+        int m = edges.size();
+        int[] us = new int[m];
+        int[] vs = new int[m];
+        int[] ws = new int[m];
+        for (int e = 0; e < m; e++) {
+            Edge<T> edge = edges.get(e);
+            us[e] = index.indexOf(edge.getU());
+            vs[e] = index.indexOf(edge.getV());
+            ws[e] = edge.getWeight();
+        }
+
+        int[] tree = boruvka(index.size(), us, vs, ws, pool);
+        if (tree == null) {
+            return null;
+        }
+        Set<Edge<T>> mst = new HashSet<>();
+        for (int e : tree) {
+            mst.add(edges.get(e));
+        }
+        return mst;
+    }
+
+    /**
+     * Return the minimum spanning tree of an undirected CSR graph as the
+     * arcs it uses, computed in parallel on the common pool.
+     *
+     * @param graph the graph we are searching
+     * @return the arcs of the MST, each leading from the smaller vertex to
+     * the larger; null if the graph is disconnected
+     * @throws IllegalArgumentException if graph is null or directed
+     */
+    public static int[] minimumSpanningTree(CsrGraph graph) {
+        return minimumSpanningTree(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return the minimum spanning tree of an undirected CSR graph as the
+     * arcs it uses, computed in parallel on the given pool. Of the two arcs
+     * of every edge only the one leading from the smaller vertex to the
+     * larger is considered, and self loops are skipped.
+     *
+     * @param graph the graph we are searching
+     * @param pool the pool to run on
+     * @return the arcs of the MST, each leading from the smaller vertex to
+     * the larger; null if the graph is disconnected
+     * @throws IllegalArgumentException if any input is null, or if graph is
+     *                                  directed
+     */
+    public static int[] minimumSpanningTree(CsrGraph graph,
+                                            ForkJoinPool pool) {
+        if ((graph == null) || (pool == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Graph must be undirected");
+        }
+
+        //Count each vertex's forward arcs, then lay them out in order
+        int n = graph.getVertexCount();
+        int[] starts = new int[n + 1];
+        parallelFor(pool, n, GRAIN, u -> {
+            int count = 0;
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                if (u < graph.getTarget(e)) {
+                    count++;
+                }
+            }
+            starts[u + 1] = count;
+        });
+        for (int u = 0; u < n; u++) {
+            starts[u + 1] += starts[u];
+        }
+
+        int m = starts[n];
+        int[] us = new int[m];
+        int[] vs = new int[m];
+        int[] ws = new int[m];
+        int[] arcs = new int[m];
+        parallelFor(pool, n, GRAIN, u -> {
+            int i = starts[u];
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getTarget(e);
+                if (u < v) {
+                    us[i] = u;
+                    vs[i] = v;
+                    ws[i] = graph.getWeight(e);
+                    arcs[i++] = e;
+                }
+            }
+        });
+
+        int[] tree = boruvka(n, us, vs, ws, pool);
+        if (tree == null) {
+            return null;
+        }
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = arcs[tree[i]];
+        }
+        return tree;
+    }
+
+    /**
+     * Private helper that runs Boruvka's algorithm over an edge list held
+     * in three arrays.
+     *
+     * @param n the number of vertices
+     * @param us one end of every edge
+     * @param vs the other end of every edge
+     * @param ws the weight of every edge
+     * @param pool the pool to run on
+     * @return the ids of the MST's edges; null if the graph is disconnected
+     */
+    private static int[] boruvka(int n, int[] us, int[] vs, int[] ws,
+                                 ForkJoinPool pool) {
+        AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        parallelFor(pool, n, GRAIN, v -> parents.set(v, v));
+        AtomicLongArray offers = new AtomicLongArray(n);
+        int[] tree = new int[Math.max(0, n - 1)];
+        AtomicInteger size = new AtomicInteger();
+
+        int[] ids = new int[us.length];
+        parallelFor(pool, ids.length, GRAIN, e -> ids[e] = e);
+        EdgeList live = new EdgeList(ids, us, vs, ws);
+
+        while ((live.ids.length > 0) && (size.get() < n - 1)) {
+            EdgeList edges = live;
+            parallelFor(pool, n, GRAIN, v -> offers.set(v, NONE));
+            parallelFor(pool, edges.ids.length, GRAIN, k -> {
+                int cu = find(parents, edges.us[k]);
+                int cv = find(parents, edges.vs[k]);
+                if (cu != cv) {
+                    long offer = ((long) edges.ws[k] << 32) | edges.ids[k];
+                    lower(offers, cu, offer);
+                    lower(offers, cv, offer);
+                }
+            });
+
+            int before = size.get();
+            parallelFor(pool, n, GRAIN, c -> {
+                long offer = offers.get(c);
+                if (offer != NONE) {
+                    int e = (int) offer;
+                    if (union(parents, us[e], vs[e])) {
+                        tree[size.getAndIncrement()] = e;
+                    }
+                }
+            });
+            if (size.get() == before) {
+                break;
+            }
+            //Point every vertex straight at its root, so later finds are
+            //one step
+            parallelFor(pool, n, GRAIN, v -> parents.set(v, find(parents, v)));
+            live = crossing(edges, parents, pool);
+        }
+        return (size.get() == tree.length) ? tree : null;
+    }
+
+    /**
+     * Private helper that keeps the edges whose ends are still in different
+     * components, in their original order, with each end replaced by its
+     * component's root. Later rounds then touch one entry per component
+     * rather than one per vertex. Each block of edges is counted, then
+     * copied to its place after the blocks before it.
+     *
+     * @param edges the edges to filter
+     * @param parents the union-find forest, every vertex pointing at its
+     * root
+     * @param pool the pool to run on
+     * @return the edges that cross components
+     */
+    private static EdgeList crossing(EdgeList edges,
+                                     AtomicIntegerArray parents,
+                                     ForkJoinPool pool) {
+        int m = edges.ids.length;
+        int blocks = (m + GRAIN - 1) / GRAIN;
+        int[] offsets = new int[blocks + 1];
+        parallelFor(pool, blocks, 1, b -> {
+            int count = 0;
+            for (int k = b * GRAIN; k < Math.min(m, (b + 1) * GRAIN); k++) {
+                if (parents.get(edges.us[k]) != parents.get(edges.vs[k])) {
+                    count++;
+                }
+            }
+            offsets[b + 1] = count;
+        });
+        for (int b = 0; b < blocks; b++) {
+            offsets[b + 1] += offsets[b];
+        }
+
+        EdgeList out = new EdgeList(offsets[blocks]);
+        parallelFor(pool, blocks, 1, b -> {
+            int i = offsets[b];
+            for (int k = b * GRAIN; k < Math.min(m, (b + 1) * GRAIN); k++) {
+                int cu = parents.get(edges.us[k]);
+                int cv = parents.get(edges.vs[k]);
+                if (cu != cv) {
+                    out.ids[i] = edges.ids[k];
+                    out.us[i] = cu;
+                    out.vs[i] = cv;
+                    out.ws[i++] = edges.ws[k];
+                }
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Private helper that finds the root of a vertex's tree, pointing the
+     * vertices it passes at their grandparents on the way. Another thread
+     * may have moved a parent already, in which case the shortcut is
+     * skipped.
+     *
+     * @param parents the union-find forest
+     * @param v the vertex
+     * @return the root of the vertex's tree
+     */
+    private static int find(AtomicIntegerArray parents, int v) {
+        while (true) {
+            int parent = parents.get(v);
+            if (parent == v) {
+                return v;
+            }
+            int grandparent = parents.get(parent);
+            if (parent != grandparent) {
+                parents.compareAndSet(v, parent, grandparent);
+            }
+            v = grandparent;
+        }
+    }
+
+    /**
+     * Private helper that joins the trees of two vertices by hanging the
+     * larger root under the smaller one, retrying if another thread moved
+     * the root first.
+     *
+     * @param parents the union-find forest
+     * @param a the first vertex
+     * @param b the second vertex
+     * @return true if this call joined the trees, false if they were
+     * already one
+     */
+    private static boolean union(AtomicIntegerArray parents, int a, int b) {
+        while (true) {
+            a = find(parents, a);
+            b = find(parents, b);
+            if (a == b) {
+                return false;
+            }
+            if (a < b) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            if (parents.compareAndSet(a, a, b)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Private helper that lowers a component's offer to {@code offer} if
+     * that is smaller, retrying while other threads change it.
+     *
+     * @param offers the lightest offer of every component
+     * @param c the component
+     * @param offer the packed weight and id of an edge
+     */
+    private static void lower(AtomicLongArray offers, int c, long offer) {
+        long current = offers.get(c);
+        while ((offer < current) && !offers.compareAndSet(c, current, offer)) {
+            current = offers.get(c);
+        }
+    }
+
+    /**
+     * Private helper that runs a body for every index from {@code 0} up to
+     * {@code n - 1} on the pool, and returns once all have run.
+     *
+     * @param pool the pool to run on
+     * @param n the number of indices
+     * @param grain the most indices one task runs without splitting
+     * @param body the code to run for each index
+     */
+    private static void parallelFor(ForkJoinPool pool, int n, int grain,
+                                    IntConsumer body) {
+        pool.invoke(new ForRange(0, n, grain, body));
+    }
+
+    /**
+     * The edges still in play, as parallel arrays: the id of each edge in
+     * the original list, its ends and its weight.
+     */
+    private static final class EdgeList {
+        private final int[] ids;
+        private final int[] us;
+        private final int[] vs;
+        private final int[] ws;
+
+        /**
+         * Create a list from its arrays, which are kept rather than copied.
+         *
+         * @param ids the id of every edge
+         * @param us one end of every edge
+         * @param vs the other end of every edge
+         * @param ws the weight of every edge
+         */
+        private EdgeList(int[] ids, int[] us, int[] vs, int[] ws) {
+            this.ids = ids;
+            this.us = us;
+            this.vs = vs;
+            this.ws = ws;
+        }
+
+        /**
+         * Create a list of the given size to be filled in.
+         *
+         * @param size the number of edges
+         */
+        private EdgeList(int size) {
+            this(new int[size], new int[size], new int[size], new int[size]);
+        }
+    }
+
+    /**
+     * Runs a body for a range of indices, splitting the range across the
+     * pool.
+     */
+    private static final class ForRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        /**
+         * Create a task for the indices {@code from} up to {@code to}.
+         *
+         * @param from the first index
+         * @param to one past the last index
+         * @param grain the most indices one task runs without splitting
+         * @param body the code to run for each index
+         */
+        private ForRange(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ForRange(from, mid, grain, body),
+                        new ForRange(mid, to, grain, body));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                body.accept(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable graph in compressed sparse row form. Vertices are the ids
+ * {@code 0} up to {@code getVertexCount() - 1}. The arcs leaving vertex
+ * {@code v} are {@code edgeStart(v)} up to {@code edgeEnd(v)}, and arc
+ * {@code e} leads to {@code getTarget(e)} with weight {@code getWeight(e)}.
+ * <p>
+ * Like {@link Graph#getAdjacencyList()}, an undirected edge is stored as an
+ * arc in each direction. The whole graph is three int arrays, so it takes
+ * about {@code 4 * V + 8 * A} bytes for {@code A} arcs, against several
+ * objects per arc for {@link Graph}, and a traversal reads memory in order
+ * instead of chasing references.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class CsrGraph {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final boolean directed;
+
+    /**
+     * Create a CSR copy of a graph. Vertex ids come from {@code index},
+     * which must contain every vertex of the graph, and the arcs of each
+     * vertex keep the order of its adjacency list.
+     *
+     * @param graph the graph to copy
+     * @param index the numbering of the graph's vertices
+     * @param <T> the data type representing the vertices in the graph
+     * @throws IllegalArgumentException if any input is null, or if a vertex
+     * of the graph is not in the index
+     */
+    public <T> CsrGraph(Graph<T> graph, VertexIndex<T> index) {
+        if ((graph == null) || (index == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
+                graph.getAdjacencyList();
+        int n = index.size();
+
+        //First pass sizes every row, second pass fills them in
+        offsets = new int[n + 1];
+        for (Map.Entry<Vertex<T>, List<VertexDistancePair<T>>> entry
+                : adjList.entrySet()) {
+            int id = index.indexOf(entry.getKey());
+            if (id < 0) {
+                throw new IllegalArgumentException("Vertex "
+                        + entry.getKey() + " is not in the index");
+            }
+            offsets[id + 1] = entry.getValue().size();
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        targets = new int[offsets[n]];
+        weights = new int[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            List<VertexDistancePair<T>> pairs =
+                    adjList.get(index.getVertex(v));
+            if (pairs == null) {
+                continue;
+            }
+            int arc = offsets[v];
+            for (VertexDistancePair<T> pair : pairs) {
+                int target = index.indexOf(pair.getVertex());
+                if (target < 0) {
+                    throw new IllegalArgumentException("Vertex "
+                            + pair.getVertex() + " is not in the index");
+                }
+                targets[arc] = target;
+                weights[arc] = pair.getDistance();
+                arc++;
+            }
+        }
+        directed = graph.isDirected();
+    }
+
+    /**
+     * Create a graph directly from its arrays, which are used as they are
+     * rather than copied. The caller must not change them afterwards.
+     *
+     * @param offsets the first arc of every vertex, plus the arc count at
+     * the end
+     * @param targets the vertex each arc leads to
+     * @param weights the weight of each arc
+     * @param directed whether the arcs came from directed edges
+     */
+    CsrGraph(int[] offsets, int[] targets, int[] weights, boolean directed) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.directed = directed;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int getVertexCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of arcs. An undirected edge counts twice.
+     *
+     * @return the number of arcs
+     */
+    public int getArcCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns whether the arcs came from directed edges.
+     *
+     * @return true if this graph is directed, false otherwise
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the first arc leaving a vertex.
+     *
+     * @param v the vertex
+     * @return the index of the first arc of {@code v}
+     */
+    public int edgeStart(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Returns one past the last arc leaving a vertex.
+     *
+     * @param v the vertex
+     * @return the index after the last arc of {@code v}
+     */
+    public int edgeEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Returns the number of arcs leaving a vertex.
+     *
+     * @param v the vertex
+     * @return the out-degree of {@code v}
+     */
+    public int getDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Returns the vertex an arc leads to.
+     *
+     * @param arc the arc
+     * @return the target of the arc
+     */
+    public int getTarget(int arc) {
+        return targets[arc];
+    }
+
+    /**
+     * Returns the weight of an arc.
+     *
+     * @param arc the arc
+     * @return the weight of the arc
+     */
+    public int getWeight(int arc) {
+        return weights[arc];
+    }
+
+    /**
+     * Returns the vertex an arc leaves from. Arcs don't store their source,
+     * so this binary searches the offsets in O(log V).
+     *
+     * @param arc the arc
+     * @return the source of the arc
+     * @throws IndexOutOfBoundsException if arc is not a valid arc
+     */
+    public int getSource(int arc) {
+        if ((arc < 0) || (arc >= targets.length)) {
+            throw new IndexOutOfBoundsException("No arc " + arc);
+        }
+        //Last vertex whose first arc is at or before the arc
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= arc) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,380 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parallel single-source shortest paths by delta-stepping, for graphs with
+ * no negative edge weights.
+ * <p>
+ * Vertices are kept in buckets of width {@code delta} by tentative distance,
+ * and buckets are settled in increasing order. Edges no heavier than
+ * {@code delta} are light: relaxing one can put its target back into the
+ * bucket being settled, so light edges are relaxed in rounds until the
+ * bucket stops changing. Heavy edges can only reach later buckets, so they
+ * are relaxed once, after the bucket is settled. Within a round every
+ * vertex of the frontier is relaxed at the same time on a
+ * {@link ForkJoinPool}, lowering distances with compare-and-set.
+ * <p>
+ * A {@code delta} of 1 with integer weights is Dijkstra with one bucket per
+ * distance; a huge {@code delta} is parallel Bellman-Ford. Somewhere near
+ * the average edge weight usually gives enough work per round to keep the
+ * threads busy without much re-relaxation. Either way the distances are the
+ * ones {@link GraphAlgorithms#dijkstras(int, CsrGraph)} returns.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class DeltaStepping {
+
+    /**
+     * Frontier vertices below which a task relaxes them itself instead of
+     * splitting.
+     */
+    private static final int SPLIT_THRESHOLD = 256;
+
+    /**
+     * Utility class, no instances.
+     */
+    private DeltaStepping() {
+    }
+
+    /**
+     * Find the shortest distance between the start vertex and all other
+     * vertices of the given graph, in parallel on the common pool. The
+     * graph is converted to CSR form first.
+     *
+     * @param start the Vertex you are starting at
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return a map of the shortest distances from start to every other node
+     * in the graph, Integer.MAX_VALUE where no path exists
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static <T> Map<Vertex<T>, Integer> shortestPaths(Vertex<T> start,
+                                                            Graph<T> graph) {
+        if (start == null || graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (!graph.getAdjacencyList().containsKey(start)) {
+            throw new IllegalArgumentException("Start node does not exist in "
+                    + "graph");
+        }
+
+        VertexIndex<T> index = new VertexIndex<>(graph);
+        int[] dist = shortestPaths(index.indexOf(start),
+                new CsrGraph(graph, index));
+
+        Map<Vertex<T>, Integer> out = new HashMap<>();
+        for (int v = 0; v < dist.length; v++) {
+            out.put(index.getVertex(v), dist[v]);
+        }
+        return out;
+    }
+
+    /**
+     * Find the shortest distance from vertex {@code start} to every vertex of
+     * a CSR graph, in parallel on the common pool, with {@code delta} set to
+     * the average arc weight.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @return the shortest distance to every vertex, indexed by vertex, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static int[] shortestPaths(int start, CsrGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        long total = 0;
+        for (int e = 0; e < graph.getArcCount(); e++) {
+            total += graph.getWeight(e);
+        }
+        int delta = (int) Math.min(Integer.MAX_VALUE, Math.max(1,
+                total / Math.max(1, graph.getArcCount())));
+        return shortestPaths(start, graph, delta, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Find the shortest distance from vertex {@code start} to every vertex of
+     * a CSR graph, in parallel on the given pool.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @param delta the width of each bucket, at least 1
+     * @param pool the pool to relax edges on
+     * @return the shortest distance to every vertex, indexed by vertex, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph or pool is null, delta is
+     *                                  not positive, or {@code start}
+     *                                  doesn't exist in the graph
+     */
+    public static int[] shortestPaths(int start, CsrGraph graph, int delta,
+                                      ForkJoinPool pool) {
+        if (graph == null || pool == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (delta <= 0) {
+            throw new IllegalArgumentException("Delta must be positive");
+        }
+        if ((start < 0) || (start >= graph.getVertexCount())) {
+            throw new IllegalArgumentException("Vertex does not exist");
+        }
+
+        int n = graph.getVertexCount();
+        AtomicIntegerArray dist = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            dist.set(v, Integer.MAX_VALUE);
+        }
+        dist.set(start, 0);
+
+        //Only non-empty buckets are kept, so a small delta with heavy
+        //edges doesn't leave a long run of empty ones to walk past
+        TreeMap<Integer, IntList> buckets = new TreeMap<>();
+        bucketFor(buckets, 0).add(start);
+
+        //Stamps dedupe the frontier and the settled set of each bucket
+        int[] frontierStamp = new int[n];
+        int[] settledStamp = new int[n];
+        Arrays.fill(frontierStamp, -1);
+        Arrays.fill(settledStamp, -1);
+        int round = 0;
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Integer, IntList> next = buckets.pollFirstEntry();
+            int i = next.getKey();
+            IntList settled = new IntList();
+            IntList frontier = next.getValue();
+
+            while (frontier.size() > 0) {
+                //Drop entries that moved to an earlier bucket, and repeats
+                IntList live = new IntList();
+                for (int k = 0; k < frontier.size(); k++) {
+                    int v = frontier.get(k);
+                    if ((dist.get(v) / delta == i)
+                            && (frontierStamp[v] != round)) {
+                        frontierStamp[v] = round;
+                        live.add(v);
+                        if (settledStamp[v] != i) {
+                            settledStamp[v] = i;
+                            settled.add(v);
+                        }
+                    }
+                }
+                round++;
+
+                IntList changed = pool.invoke(new Relax(graph, dist, live,
+                        0, live.size(), delta, true));
+                frontier = distribute(changed, dist, delta, i, buckets);
+            }
+
+            IntList changed = pool.invoke(new Relax(graph, dist, settled,
+                    0, settled.size(), delta, false));
+            distribute(changed, dist, delta, i, buckets);
+        }
+
+        int[] out = new int[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = dist.get(v);
+        }
+        return out;
+    }
+
+    /**
+     * Private helper that files every vertex whose distance dropped into
+     * the bucket for its new distance.
+     *
+     * @param changed the vertices whose distance dropped, maybe repeated
+     * @param dist the tentative distances
+     * @param delta the width of each bucket
+     * @param current the bucket being settled
+     * @param buckets the non-empty buckets after the current one
+     * @return the vertices that landed in the current bucket
+     */
+    private static IntList distribute(IntList changed, AtomicIntegerArray dist,
+                                      int delta, int current,
+                                      TreeMap<Integer, IntList> buckets) {
+        IntList again = new IntList();
+        for (int k = 0; k < changed.size(); k++) {
+            int v = changed.get(k);
+            int bucket = dist.get(v) / delta;
+            if (bucket == current) {
+                again.add(v);
+            } else {
+                bucketFor(buckets, bucket).add(v);
+            }
+        }
+        return again;
+    }
+
+    /**
+     * Private helper that returns a bucket, creating it if it doesn't exist
+     * yet.
+     *
+     * @param buckets the non-empty buckets
+     * @param bucket the index of the bucket
+     * @return the bucket
+     */
+    private static IntList bucketFor(TreeMap<Integer, IntList> buckets,
+                                     int bucket) {
+        IntList out = buckets.get(bucket);
+        if (out == null) {
+            out = new IntList();
+            buckets.put(bucket, out);
+        }
+        return out;
+    }
+
+    /**
+     * Relaxes either the light or the heavy arcs of a range of vertices,
+     * splitting the range across the pool, and returns the targets whose
+     * distance it lowered.
+     */
+    private static final class Relax extends RecursiveTask<IntList> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph graph;
+        private final AtomicIntegerArray dist;
+        private final IntList vertices;
+        private final int from;
+        private final int to;
+        private final int delta;
+        private final boolean light;
+
+        /**
+         * Create a task for the vertices {@code from} up to {@code to}.
+         *
+         * @param graph the graph
+         * @param dist the tentative distances
+         * @param vertices the vertices to relax
+         * @param from the first position to relax
+         * @param to one past the last position to relax
+         * @param delta the width of each bucket
+         * @param light true for arcs no heavier than delta, false for the
+         * rest
+         */
+        private Relax(CsrGraph graph, AtomicIntegerArray dist,
+                      IntList vertices, int from, int to, int delta,
+                      boolean light) {
+            this.graph = graph;
+            this.dist = dist;
+            this.vertices = vertices;
+            this.from = from;
+            this.to = to;
+            this.delta = delta;
+            this.light = light;
+        }
+
+        @Override
+        protected IntList compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                Relax left = new Relax(graph, dist, vertices, from, mid,
+                        delta, light);
+                left.fork();
+                IntList right = new Relax(graph, dist, vertices, mid, to,
+                        delta, light).compute();
+                IntList out = left.join();
+                out.addAll(right);
+                return out;
+            }
+
+            IntList out = new IntList();
+            for (int k = from; k < to; k++) {
+                int u = vertices.get(k);
+                long du = dist.get(u);
+                for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                    int w = graph.getWeight(e);
+                    if ((w <= delta) == light) {
+                        int v = graph.getTarget(e);
+                        if (lower(dist, v, du + w)) {
+                            out.add(v);
+                        }
+                    }
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Lowers a distance to {@code alt} if that is smaller, retrying
+         * while other threads change it.
+         *
+         * @param dist the tentative distances
+         * @param v the vertex
+         * @param alt the candidate distance
+         * @return true if this call lowered the distance
+         */
+        private static boolean lower(AtomicIntegerArray dist, int v,
+                                     long alt) {
+            int current = dist.get(v);
+            while (alt < current) {
+                if (dist.compareAndSet(v, current, (int) alt)) {
+                    return true;
+                }
+                current = dist.get(v);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+        private int[] data = new int[16];
+        private int size;
+
+        /**
+         * Appends a value.
+         *
+         * @param value the value to append
+         */
+        private void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        /**
+         * Appends every value of another list.
+         *
+         * @param other the list to append
+         */
+        private void addAll(IntList other) {
+            if (size + other.size > data.length) {
+                data = Arrays.copyOf(data,
+                        Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.data, 0, data, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         * Returns a value.
+         *
+         * @param index the position of the value
+         * @return the value
+         */
+        private int get(int index) {
+            return data[index];
+        }
+
+        /**
+         * Returns the number of values.
+         *
+         * @return the size of the list
+         */
+        private int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Callbacks for a depth first search run by
+ * {@link GraphAlgorithms#depthFirstSearch(Vertex, Graph, DfsVisitor)}.
+ * Every method does nothing by default, so a visitor only overrides the
+ * events it needs.
+ * <p>
+ * Discovery and finish times come from one clock that ticks on every
+ * event, so they are distinct and a vertex's interval nests inside the
+ * interval of each of its ancestors in the DFS tree.
+ *
+ * @param <T> the data type representing the vertices in the graph
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public interface DfsVisitor<T> {
+
+    /**
+     * Called when a vertex is first reached, before any of its neighbors.
+     *
+     * @param vertex the vertex being discovered
+     * @param discovery the discovery time of the vertex
+     */
+    default void preVisit(Vertex<T> vertex, int discovery) {
+    }
+
+    /**
+     * Called once every neighbor of a vertex has been explored.
+     *
+     * @param vertex the vertex being finished
+     * @param finish the finish time of the vertex
+     */
+    default void postVisit(Vertex<T> vertex, int finish) {
+    }
+
+    /**
+     * Called for an edge that leads back to a vertex that has been
+     * discovered but not finished, which means the graph has a cycle. In an
+     * undirected graph the edge straight back to a vertex's DFS parent is
+     * not reported.
+     *
+     * @param from the vertex being explored
+     * @param to the unfinished vertex the edge leads to
+     */
+    default void backEdge(Vertex<T> from, Vertex<T> to) {
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * A disjoint-set forest over the ids {@code 0} up to {@code size - 1}, which
+ * start out each in a set of their own.
+ * <p>
+ * The root of the shorter tree is hung under the root of the taller one
+ * (union by rank), and every find points the nodes it passes at their
+ * grandparents (path halving). Together they keep trees so flat that a
+ * sequence of operations takes amortized time proportional to the inverse
+ * Ackermann function per operation, which is at most 4 for any graph that
+ * fits in memory.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class DisjointSet {
+
+    private final int[] parents;
+    private final byte[] ranks;
+    private int setCount;
+
+    /**
+     * Create a forest of singleton sets for the ids {@code 0} up to
+     * {@code size - 1}.
+     *
+     * @param size the number of ids
+     * @throws IllegalArgumentException if size is negative
+     */
+    public DisjointSet(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative");
+        }
+        parents = new int[size];
+        ranks = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+        setCount = size;
+    }
+
+    /**
+     * Returns the representative of the set an id is in. Two ids are in the
+     * same set exactly when they have the same representative.
+     *
+     * @param id the id to look up
+     * @return the root of the id's tree
+     * @throws IndexOutOfBoundsException if id is not a valid id
+     */
+    public int find(int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+        return id;
+    }
+
+    /**
+     * Merges the sets of two ids.
+     *
+     * @param a an id in the first set
+     * @param b an id in the second set
+     * @return true if the sets were merged, false if the ids were already in
+     * the same set
+     * @throws IndexOutOfBoundsException if a or b is not a valid id
+     */
+    public boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (ranks[rootA] < ranks[rootB]) {
+            parents[rootA] = rootB;
+        } else if (ranks[rootA] > ranks[rootB]) {
+            parents[rootB] = rootA;
+        } else {
+            parents[rootB] = rootA;
+            ranks[rootA]++;
+        }
+        setCount--;
+        return true;
+    }
+
+    /**
+     * Returns whether two ids are in the same set.
+     *
+     * @param a the first id
+     * @param b the second id
+     * @return true if a and b are in the same set
+     * @throws IndexOutOfBoundsException if a or b is not a valid id
+     */
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     *
+     * @return the number of sets
+     */
+    public int getSetCount() {
+        return setCount;
+    }
+
+    /**
+     * Returns the number of ids.
+     *
+     * @return the number of ids in all the sets together
+     */
+    public int size() {
+        return parents.length;
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A weighted graph that can change after it is built, unlike
+ * {@link Graph}. There is at most one edge from one vertex to another, and
+ * in an undirected graph the edge from u to v is also the edge from v to u.
+ * <p>
+ * Every vertex keeps a map of the edges leaving it and, in a directed
+ * graph, a second map of the edges entering it, so adding, removing or
+ * reweighting an edge takes expected constant time. To keep shortest
+ * distances up to date as the graph changes, make the changes through an
+ * {@link IncrementalShortestPaths}.
+ *
+ * @param <T> the data type representing the vertices in the graph
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class DynamicGraph<T> {
+
+    private final Map<Vertex<T>, Map<Vertex<T>, Integer>> outEdges;
+    private final Map<Vertex<T>, Map<Vertex<T>, Integer>> inEdges;
+    private final boolean directed;
+    private int edgeCount;
+    private int modCount;
+
+    /**
+     * Create an empty graph.
+     *
+     * @param directed whether the edges are directed
+     */
+    public DynamicGraph(boolean directed) {
+        this.directed = directed;
+        outEdges = new HashMap<>();
+        inEdges = directed ? new HashMap<>() : outEdges;
+    }
+
+    /**
+     * Create a copy of a graph. Where the graph has several edges from one
+     * vertex to another, only the lightest is kept. A graph with any
+     * directed edge is copied as a directed graph, with each of its
+     * undirected edges becoming an edge each way, as in
+     * {@link Graph#getAdjacencyList()}.
+     *
+     * @param graph the graph to copy
+     * @throws IllegalArgumentException if graph is null
+     */
+    public DynamicGraph(Graph<T> graph) {
+        this(graph != null && graph.isDirected());
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        for (Map.Entry<Vertex<T>, List<VertexDistancePair<T>>> entry
+                : graph.getAdjacencyList().entrySet()) {
+            addVertex(entry.getKey());
+            for (VertexDistancePair<T> pair : entry.getValue()) {
+                Vertex<T> v = pair.getVertex();
+                Map<Vertex<T>, Integer> out = outEdges.get(entry.getKey());
+                Integer weight = (out == null) ? null : out.get(v);
+                if (weight == null) {
+                    addEdge(entry.getKey(), v, pair.getDistance());
+                } else if (pair.getDistance() < weight) {
+                    updateWeight(entry.getKey(), v, pair.getDistance());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a vertex with no edges, unless it is already in the graph.
+     *
+     * @param vertex the vertex to add
+     * @return true if the vertex was added, false if it was already there
+     * @throws IllegalArgumentException if vertex is null
+     */
+    public boolean addVertex(Vertex<T> vertex) {
+        if (vertex == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (outEdges.containsKey(vertex)) {
+            return false;
+        }
+        outEdges.put(vertex, new HashMap<>());
+        if (directed) {
+            inEdges.put(vertex, new HashMap<>());
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Adds an edge, and its ends if they are not in the graph yet.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @param weight the weight of the edge
+     * @throws IllegalArgumentException if u or v is null, or if the edge is
+     *                                  already in the graph
+     */
+    public void addEdge(Vertex<T> u, Vertex<T> v, int weight) {
+        if ((u == null) || (v == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (containsEdge(u, v)) {
+            throw new IllegalArgumentException("Edge from " + u + " to " + v
+                    + " already exists");
+        }
+        addVertex(u);
+        addVertex(v);
+        outEdges.get(u).put(v, weight);
+        inEdges.get(v).put(u, weight);
+        edgeCount++;
+        modCount++;
+    }
+
+    /**
+     * Removes an edge. Its ends stay in the graph.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @return the weight the edge had
+     * @throws IllegalArgumentException if u or v is null
+     * @throws NoSuchElementException if the edge is not in the graph
+     */
+    public int removeEdge(Vertex<T> u, Vertex<T> v) {
+        int weight = getWeight(u, v);
+        outEdges.get(u).remove(v);
+        inEdges.get(v).remove(u);
+        edgeCount--;
+        modCount++;
+        return weight;
+    }
+
+    /**
+     * Changes the weight of an edge.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @param weight the new weight of the edge
+     * @return the weight the edge had
+     * @throws IllegalArgumentException if u or v is null
+     * @throws NoSuchElementException if the edge is not in the graph
+     */
+    public int updateWeight(Vertex<T> u, Vertex<T> v, int weight) {
+        int old = getWeight(u, v);
+        outEdges.get(u).put(v, weight);
+        inEdges.get(v).put(u, weight);
+        modCount++;
+        return old;
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @return the weight of the edge
+     * @throws IllegalArgumentException if u or v is null
+     * @throws NoSuchElementException if the edge is not in the graph
+     */
+    public int getWeight(Vertex<T> u, Vertex<T> v) {
+        if ((u == null) || (v == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        Map<Vertex<T>, Integer> out = outEdges.get(u);
+        Integer weight = (out == null) ? null : out.get(v);
+        if (weight == null) {
+            throw new NoSuchElementException("No edge from " + u + " to "
+                    + v);
+        }
+        return weight;
+    }
+
+    /**
+     * Returns whether the graph has an edge.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @return true if the edge is in the graph
+     * @throws IllegalArgumentException if u or v is null
+     */
+    public boolean containsEdge(Vertex<T> u, Vertex<T> v) {
+        if ((u == null) || (v == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        Map<Vertex<T>, Integer> out = outEdges.get(u);
+        return (out != null) && out.containsKey(v);
+    }
+
+    /**
+     * Returns whether a vertex is in the graph.
+     *
+     * @param vertex the vertex to look up
+     * @return true if the vertex is in the graph
+     */
+    public boolean containsVertex(Vertex<T> vertex) {
+        return outEdges.containsKey(vertex);
+    }
+
+    /**
+     * Returns the vertices of the graph.
+     *
+     * @return a read-only view of the vertices
+     */
+    public Set<Vertex<T>> getVertices() {
+        return Collections.unmodifiableSet(outEdges.keySet());
+    }
+
+    /**
+     * Returns the edges leaving a vertex, or every edge at the vertex if
+     * the graph is undirected.
+     *
+     * @param vertex the vertex
+     * @return a read-only view mapping each neighbor to the edge's weight
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    public Map<Vertex<T>, Integer> getOutEdges(Vertex<T> vertex) {
+        return edgesOf(outEdges, vertex);
+    }
+
+    /**
+     * Returns the edges entering a vertex, or every edge at the vertex if
+     * the graph is undirected.
+     *
+     * @param vertex the vertex
+     * @return a read-only view mapping each neighbor to the edge's weight
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    public Map<Vertex<T>, Integer> getInEdges(Vertex<T> vertex) {
+        return edgesOf(inEdges, vertex);
+    }
+
+    /**
+     * Returns the number of edges. An undirected edge counts once.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns whether the edges are directed.
+     *
+     * @return true if this graph is directed, false otherwise
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns a {@link Graph} with the same edges. Vertices with no edges
+     * are left out, since a Graph is built from its edges.
+     *
+     * @return a copy of this graph as a Graph
+     */
+    public Graph<T> toGraph() {
+        //Equal undirected edges collapse, so each is listed once
+        LinkedHashSet<Edge<T>> edges = new LinkedHashSet<>();
+        for (Map.Entry<Vertex<T>, Map<Vertex<T>, Integer>> entry
+                : outEdges.entrySet()) {
+            for (Map.Entry<Vertex<T>, Integer> edge
+                    : entry.getValue().entrySet()) {
+                edges.add(new Edge<>(entry.getKey(), edge.getKey(),
+                        edge.getValue(), directed));
+            }
+        }
+        return new Graph<>(edges);
+    }
+
+    /**
+     * Returns a count that changes whenever the graph does, so that a view
+     * of the graph can tell it has gone stale.
+     *
+     * @return the number of changes made to the graph
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Private helper that returns a read-only view of a vertex's edges.
+     *
+     * @param edges the edge maps to look in
+     * @param vertex the vertex
+     * @return the vertex's edges
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    private Map<Vertex<T>, Integer> edgesOf(
+            Map<Vertex<T>, Map<Vertex<T>, Integer>> edges, Vertex<T> vertex) {
+        Map<Vertex<T>, Integer> out = edges.get(vertex);
+        if (out == null) {
+            throw new NoSuchElementException("Vertex " + vertex
+                    + " is not in the graph");
+        }
+        return Collections.unmodifiableMap(out);
+    }
+}
@@ -1,11 +1,14 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.HashMap;
 
 /**
@@ -16,6 +19,11 @@ import java.util.HashMap;
  */
 public class GraphAlgorithms {
 
+    /**
+     * Distance of a vertex not reached yet in the long-valued searches.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+
     /**
      * Perform breadth first search on the given graph, starting at the start
      * Vertex.  You will return a List of the vertices in the order that
@@ -55,16 +63,17 @@ public class GraphAlgorithms {
         List<Vertex<T>> vertices = new ArrayList<>();
         vertices.add(start);
 
-        Queue<Vertex<T>> nodes = new LinkedList<>();
+        //A hash set makes each visited check O(1) instead of a list scan
+        Set<Vertex<T>> visited = new HashSet<>();
+        visited.add(start);
+
+        Queue<Vertex<T>> nodes = new ArrayDeque<>();
         nodes.add(start);
         while (!nodes.isEmpty()) {
             Vertex<T> searching = nodes.remove();
-            List<VertexDistancePair<T>> adjVerts =
-                    adjList.get(searching);
-            for (int i = 0; i < adjVerts.size(); i++) {
-                VertexDistancePair<T> vd = adjVerts.get(i);
+            for (VertexDistancePair<T> vd : adjList.get(searching)) {
                 Vertex<T> child = vd.getVertex();
-                if (!vertices.contains(child)) {
+                if (visited.add(child)) {
                     nodes.add(child);
                     vertices.add(child);
                 }
@@ -73,6 +82,63 @@ public class GraphAlgorithms {
         return vertices;
     }
 
+    /**
+     * Perform breadth first search from the start Vertex until the target
+     * Vertex is reached, and return a path between them with the fewest
+     * edges. The search stops as soon as the target is discovered, so only
+     * the levels up to the target's are explored.
+     *
+     * @param start the Vertex you are starting at
+     * @param target the Vertex you are searching for
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the vertices of the path, from start to target; null if the
+     * target cannot be reached
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static <T> List<Vertex<T>> breadthFirstSearch(Vertex<T> start,
+                                                         Vertex<T> target,
+                                                         Graph<T> graph) {
+        if (start == null || target == null || graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+
+        Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
+                graph.getAdjacencyList();
+        if (!adjList.containsKey(start) || !adjList.containsKey(target)) {
+            throw new IllegalArgumentException("Vertex does not exist");
+        }
+
+        //The parent links double as the visited set
+        Map<Vertex<T>, Vertex<T>> parents = new HashMap<>();
+        parents.put(start, null);
+
+        Queue<Vertex<T>> nodes = new ArrayDeque<>();
+        nodes.add(start);
+        while (!nodes.isEmpty() && !parents.containsKey(target)) {
+            Vertex<T> searching = nodes.remove();
+            for (VertexDistancePair<T> vd : adjList.get(searching)) {
+                Vertex<T> child = vd.getVertex();
+                if (!parents.containsKey(child)) {
+                    parents.put(child, searching);
+                    nodes.add(child);
+                }
+            }
+        }
+
+        if (!parents.containsKey(target)) {
+            return null;
+        }
+        List<Vertex<T>> path = new ArrayList<>();
+        for (Vertex<T> v = target; v != null; v = parents.get(v)) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
     /**
      * Perform depth first search on the given graph, starting at the start
      * Vertex.  You will return a List of the vertices in the order that
@@ -83,9 +149,8 @@ public class GraphAlgorithms {
      * adjacency list returns the neighbors to you.  Failure to do so may
      * cause you to lose points.
      * <p>
-     * You MUST implement this method recursively.
-     * Do not use any data structure as a stack to avoid recursion.
-     * Implementing it any other way WILL cause you to lose points!
+     * The search keeps its own stack of vertices and adjacency iterators
+     * instead of recursing, so long chains cannot overflow the thread stack.
      * <p>
      * You may import/use {@code java.util.Set}, {@code java.util.Map},
      * {@code java.util.List}, and any classes that implement the
@@ -100,8 +165,32 @@ public class GraphAlgorithms {
      */
     public static <T> List<Vertex<T>> depthFirstSearch(Vertex<T> start,
                                                        Graph<T> graph) {
+        List<Vertex<T>> vertices = new ArrayList<>();
+        depthFirstSearch(start, graph, new DfsVisitor<T>() {
+            @Override
+            public void preVisit(Vertex<T> vertex, int discovery) {
+                vertices.add(vertex);
+            }
+        });
+        return vertices;
+    }
 
-        if (start == null || graph == null) {
+    /**
+     * Perform depth first search on the given graph, starting at the start
+     * Vertex, and report every discovery, finish and back edge to the
+     * visitor. Vertices are discovered in the same order as
+     * {@link #depthFirstSearch(Vertex, Graph)} returns them.
+     *
+     * @param start the Vertex you are starting at
+     * @param graph the Graph we are searching
+     * @param visitor the callbacks to run during the search
+     * @param <T>   the data type representing the vertices in the graph.
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static <T> void depthFirstSearch(Vertex<T> start, Graph<T> graph,
+                                            DfsVisitor<T> visitor) {
+        if (start == null || graph == null || visitor == null) {
             throw new IllegalArgumentException("Inputs cannot be null");
         }
 
@@ -109,40 +198,149 @@ public class GraphAlgorithms {
             throw new IllegalArgumentException("Vertex does not exist");
         }
 
-        List<Vertex<T>> vertices = new ArrayList<>();
-        Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
-                graph.getAdjacencyList();
-        Set<Vertex<T>> vertexSet = new HashSet<>();
-        dfs(adjList, start, vertexSet, vertices);
-        return vertices;
-
+        dfs(graph, start, new HashSet<>(), visitor, 0);
     }
 
     /**
-     * Private helper method for Depth-First Search
+     * Sort the vertices of a directed acyclic graph so that every edge leads
+     * from an earlier vertex to a later one. This is the reverse of the
+     * order in which a depth first search over every vertex finishes them.
      *
-     * @param adjList   Adjacency List
-     * @param start     Vertex to start from
-     * @param vertexSet Set of vertices visited
-     * @param vertices  Vertices visited
-     * @param <T>       Type of elements stored
+     * @param graph the Graph to sort
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the vertices in topological order; null if the graph has a
+     * cycle
+     * @throws IllegalArgumentException if graph is null or not directed
      */
-    private static <T> void dfs(Map<Vertex<T>,
-            List<VertexDistancePair<T>>> adjList, Vertex<T> start,
-                                Set<Vertex<T>> vertexSet,
-                                List<Vertex<T>> vertices) {
-        if (!vertexSet.contains(start)) {
-            vertexSet.add(start);
-            vertices.add(start);
-            List<VertexDistancePair<T>> vdpairList = adjList.get(start);
-            for (VertexDistancePair<T> vdpair : vdpairList) {
-                Vertex<T> child = vdpair.getVertex();
-                dfs(adjList, child, vertexSet, vertices);
+    public static <T> List<Vertex<T>> topologicalSort(Graph<T> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (!graph.isDirected()) {
+            throw new IllegalArgumentException("Graph must be directed");
+        }
+
+        List<Vertex<T>> order = new ArrayList<>();
+        boolean[] cyclic = new boolean[1];
+        dfsAll(graph, new DfsVisitor<T>() {
+            @Override
+            public void postVisit(Vertex<T> vertex, int finish) {
+                order.add(vertex);
             }
+
+            @Override
+            public void backEdge(Vertex<T> from, Vertex<T> to) {
+                cyclic[0] = true;
+            }
+        });
+
+        if (cyclic[0]) {
+            return null;
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Return whether the given graph has a cycle. In an undirected graph,
+     * going along an edge and straight back does not count.
+     *
+     * @param graph the Graph to check
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return true if the graph has a cycle
+     * @throws IllegalArgumentException if graph is null
+     */
+    public static <T> boolean hasCycle(Graph<T> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
         }
 
+        boolean[] cyclic = new boolean[1];
+        dfsAll(graph, new DfsVisitor<T>() {
+            @Override
+            public void backEdge(Vertex<T> from, Vertex<T> to) {
+                cyclic[0] = true;
+            }
+        });
+        return cyclic[0];
+    }
+
+    /**
+     * Private helper that runs depth first search from every vertex not yet
+     * visited, taking roots in the order they first appear in the edge list.
+     *
+     * @param graph   Graph to search
+     * @param visitor Callbacks to run
+     * @param <T>     Type of elements stored
+     */
+    private static <T> void dfsAll(Graph<T> graph, DfsVisitor<T> visitor) {
+        Set<Vertex<T>> visited = new HashSet<>();
+        int time = 0;
+        for (Edge<T> edge : graph.getEdgeList()) {
+            if (!visited.contains(edge.getU())) {
+                time = dfs(graph, edge.getU(), visited, visitor, time);
+            }
+            if (!visited.contains(edge.getV())) {
+                time = dfs(graph, edge.getV(), visited, visitor, time);
+            }
+        }
     }
 
+    /**
+     * Private helper method for Depth-First Search. Each frame of the
+     * explicit stack holds a vertex and an iterator over its neighbors, so
+     * a vertex resumes where it left off once a child is finished, exactly
+     * as a recursive call would.
+     *
+     * @param graph   Graph to search
+     * @param start   Vertex to start from
+     * @param visited Set of vertices visited, shared across calls
+     * @param visitor Callbacks to run
+     * @param time    Clock value to start from
+     * @param <T>     Type of elements stored
+     * @return the clock value after the search
+     */
+    private static <T> int dfs(Graph<T> graph, Vertex<T> start,
+                               Set<Vertex<T>> visited, DfsVisitor<T> visitor,
+                               int time) {
+        Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
+                graph.getAdjacencyList();
+        boolean directed = graph.isDirected();
+
+        //Vertices discovered but not finished
+        Set<Vertex<T>> active = new HashSet<>();
+        Deque<DfsFrame<T>> stack = new ArrayDeque<>();
+
+        visited.add(start);
+        active.add(start);
+        visitor.preVisit(start, time++);
+        stack.push(new DfsFrame<>(start, null, adjList.get(start)));
+
+        while (!stack.isEmpty()) {
+            DfsFrame<T> frame = stack.peek();
+            if (!frame.neighbors.hasNext()) {
+                stack.pop();
+                active.remove(frame.vertex);
+                visitor.postVisit(frame.vertex, time++);
+                continue;
+            }
+
+            Vertex<T> child = frame.neighbors.next().getVertex();
+            if (!directed && !frame.parentSkipped
+                    && child.equals(frame.parent)) {
+                //The tree edge seen from the other end
+                frame.parentSkipped = true;
+            } else if (visited.add(child)) {
+                active.add(child);
+                visitor.preVisit(child, time++);
+                stack.push(new DfsFrame<>(child, frame.vertex,
+                        adjList.get(child)));
+            } else if (active.contains(child)) {
+                visitor.backEdge(frame.vertex, child);
+            }
+        }
+        return time;
+    }
 
     /**
      * Find the shortest distance between the start vertex and all other
@@ -157,9 +355,10 @@ public class GraphAlgorithms {
      * <p>
      * There are guaranteed to be no negative edge weights in the graph.
      * <p>
-     * You may import/use {@code java.util.PriorityQueue},
-     * {@code java.util.Map}, and any class that implements the aforementioned
-     * interface.
+     * The frontier is an {@link IndexMinHeap} over vertex ids, so a shorter
+     * distance lowers a vertex's key in place instead of queueing a second
+     * entry. Each vertex is settled exactly once and the heap never holds
+     * more than V entries.
      *
      * @param start the Vertex you are starting at
      * @param graph the Graph we are searching
@@ -181,37 +380,294 @@ public class GraphAlgorithms {
                     + "graph");
         }
 
+        VertexIndex<T> index = new VertexIndex<>(graph);
+        int[] dist = dijkstra(graph, index, index.indexOf(start), -1);
+
+        Map<Vertex<T>, Integer> dijkstra = new HashMap<>();
+        for (int v = 0; v < index.size(); v++) {
+            dijkstra.put(index.getVertex(v), dist[v]);
+        }
+        return dijkstra;
+    }
+
+    /**
+     * Find the shortest distance from the start vertex to the target vertex
+     * in a graph with no negative edge weights. The search stops as soon as
+     * the target is settled, so only vertices closer than the target are
+     * explored.
+     *
+     * @param start the Vertex you are starting at
+     * @param target the Vertex you want the distance to
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the shortest distance from start to target, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static <T> int dijkstras(Vertex<T> start, Vertex<T> target,
+                                    Graph<T> graph) {
+        if (start == null || target == null || graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+
+        if (!graph.getAdjacencyList().containsKey(start)
+                || !graph.getAdjacencyList().containsKey(target)) {
+            throw new IllegalArgumentException("Vertex does not exist in "
+                    + "graph");
+        }
+
+        VertexIndex<T> index = new VertexIndex<>(graph);
+        int t = index.indexOf(target);
+        return dijkstra(graph, index, index.indexOf(start), t)[t];
+    }
 
+    /**
+     * Private helper method for Dijkstra's algorithm on a Graph, run over
+     * vertex ids.
+     *
+     * @param graph  Graph to search
+     * @param index  Numbering of the graph's vertices
+     * @param start  Id of the vertex to start from
+     * @param target Id of the vertex to stop at, or -1 to settle every vertex
+     * @param <T>    Type of elements stored
+     * @return the distance to every vertex by id, final for every settled
+     * vertex and Integer.MAX_VALUE for those not reached
+     */
+    private static <T> int[] dijkstra(Graph<T> graph, VertexIndex<T> index,
+                                      int start, int target) {
         Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
                 graph.getAdjacencyList();
+        int[] dist = new int[index.size()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[start] = 0;
 
-        Map<Vertex<T>, Integer> dijkstra = new HashMap<>();
+        IndexMinHeap heap = new IndexMinHeap(index.size());
+        heap.insertOrDecrease(start, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            if (u == target) {
+                break;
+            }
+            for (VertexDistancePair<T> vd : adjList.get(index.getVertex(u))) {
+                int v = index.indexOf(vd.getVertex());
+                long alt = (long) dist[u] + vd.getDistance();
+                //Settled vertices already have the smallest distance, so
+                //they never pass this check
+                if (alt < dist[v]) {
+                    dist[v] = (int) alt;
+                    heap.insertOrDecrease(v, alt);
+                }
+            }
+        }
+        return dist;
+    }
 
-        for (Vertex<T> vertex : adjList.keySet()) {
-            dijkstra.put(vertex, Integer.MAX_VALUE);
+    /**
+     * Find a shortest path from the start vertex to the target vertex with
+     * bidirectional Dijkstra, in a graph with no negative edge weights.
+     * <p>
+     * One search grows forward from the start and another grows backward
+     * from the target, each time expanding whichever frontier is closer to
+     * its origin. Every edge that joins the two searches offers a candidate
+     * path, and the search stops once the two frontiers together are no
+     * shorter than the best candidate. Two balls of half the radius
+     * usually settle far fewer vertices than one ball of the full radius.
+     * <p>
+     * Vertex ids are handed out as vertices are reached, so the search does
+     * not touch the parts of the graph it never explores. A directed graph
+     * needs its edges reversed for the backward search, which is one pass
+     * over the adjacency list.
+     *
+     * @param start the Vertex you are starting at
+     * @param target the Vertex you want a path to
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the path, its length and the number of vertices settled; not
+     * found, as in dijkstras, if the shortest path is Integer.MAX_VALUE or
+     * longer
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static <T> PathResult<T> shortestPath(Vertex<T> start,
+                                                 Vertex<T> target,
+                                                 Graph<T> graph) {
+        checkEndpoints(start, target, graph);
+
+        Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
+                graph.getAdjacencyList();
+        VertexIndex<T> index = new VertexIndex<>();
+        SearchSide<T> forward = new SearchSide<>(adjList, index);
+        SearchSide<T> backward = new SearchSide<>(graph.isDirected()
+                ? reverseAdjacency(adjList) : adjList, index);
+        forward.relax(index.add(start), 0, -1, 0);
+        backward.relax(index.add(target), 0, -1, 0);
+
+        long best = start.equals(target) ? 0 : Long.MAX_VALUE;
+        int meet = start.equals(target) ? 0 : -1;
+        int settled = 0;
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()
+                && (forward.minKey() + backward.minKey() < best)) {
+            SearchSide<T> side = (forward.minKey() <= backward.minKey())
+                    ? forward : backward;
+            SearchSide<T> other = (side == forward) ? backward : forward;
+
+            int u = side.heap.removeMin();
+            settled++;
+            for (VertexDistancePair<T> vd : side.neighbors(u)) {
+                int v = index.add(vd.getVertex());
+                long alt = side.dist[u] + vd.getDistance();
+                side.relax(v, alt, u, alt);
+                if ((other.dist[v] != INFINITY)
+                        && (side.dist[v] + other.dist[v] < best)) {
+                    best = side.dist[v] + other.dist[v];
+                    meet = v;
+                }
+            }
+        }
+
+        //Like dijkstras, a path too long for an int counts as no path
+        if ((meet < 0) || (best >= Integer.MAX_VALUE)) {
+            return new PathResult<>(null, Integer.MAX_VALUE, settled);
         }
+        List<Vertex<T>> path = walkBack(meet, forward.parent, index);
+        Collections.reverse(path);
+        List<Vertex<T>> rest = walkBack(meet, backward.parent, index);
+        path.addAll(rest.subList(1, rest.size()));
+        return new PathResult<>(path, (int) best, settled);
+    }
 
-        dijkstra.put(start, 0);
+    /**
+     * Find a shortest path from the start vertex to the target vertex with
+     * A* search, in a graph with no negative edge weights.
+     * <p>
+     * Vertices are expanded in order of their distance from the start plus
+     * the heuristic's estimate of their distance to the target, so the
+     * search heads toward the target instead of spreading evenly. The
+     * better the estimate, the fewer vertices are settled. As long as the
+     * estimate never overshoots, the path found is a shortest one; a vertex
+     * reached again by a shorter path after it was settled is reopened.
+     *
+     * @param start the Vertex you are starting at
+     * @param target the Vertex you want a path to
+     * @param graph the Graph we are searching
+     * @param heuristic a lower bound on the distance to the target
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the path, its length and the number of vertices settled; not
+     * found, as in dijkstras, if the shortest path is Integer.MAX_VALUE or
+     * longer
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static <T> PathResult<T> shortestPath(Vertex<T> start,
+                                                 Vertex<T> target,
+                                                 Graph<T> graph,
+                                                 Heuristic<T> heuristic) {
+        checkEndpoints(start, target, graph);
+        if (heuristic == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
 
-        PriorityQueue<VertexDistancePair<T>> pq = new PriorityQueue<>();
-        pq.add(new VertexDistancePair<T>(start, 0));
+        VertexIndex<T> index = new VertexIndex<>();
+        SearchSide<T> search =
+                new SearchSide<>(graph.getAdjacencyList(), index);
+        int t = index.add(target);
+        search.relax(index.add(start), 0, -1,
+                heuristic.estimate(start, target));
 
-        while (!pq.isEmpty()) {
-            VertexDistancePair<T> curr = pq.remove();
-            List<VertexDistancePair<T>> vdpairs =
-                    graph.getAdjacencyList().get(curr.getVertex());
-            for (VertexDistancePair<T> vd : vdpairs) {
-                int dist = curr.getDistance() + vd.getDistance();
-                if (dist < dijkstra.get(vd.getVertex())) {
-                    dijkstra.put(vd.getVertex(), dist);
-                    pq.add(new VertexDistancePair<>(vd.getVertex(),
-                            dist));
+        int settled = 0;
+        while (!search.heap.isEmpty()) {
+            int u = search.heap.removeMin();
+            settled++;
+            if (u == t) {
+                if (search.dist[t] >= Integer.MAX_VALUE) {
+                    break;
+                }
+                List<Vertex<T>> path = walkBack(t, search.parent, index);
+                Collections.reverse(path);
+                return new PathResult<>(path, (int) search.dist[t], settled);
+            }
+            for (VertexDistancePair<T> vd : search.neighbors(u)) {
+                int v = index.add(vd.getVertex());
+                long alt = search.dist[u] + vd.getDistance();
+                if (alt < search.dist[v]) {
+                    search.relax(v, alt, u, alt
+                            + heuristic.estimate(vd.getVertex(), target));
                 }
             }
+        }
+        return new PathResult<>(null, Integer.MAX_VALUE, settled);
+    }
 
+    /**
+     * Private helper that validates the endpoints of a point-to-point
+     * search.
+     *
+     * @param start  Vertex to start from
+     * @param target Vertex to find a path to
+     * @param graph  Graph to search
+     * @param <T>    Type of elements stored
+     * @throws IllegalArgumentException if any input is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    private static <T> void checkEndpoints(Vertex<T> start, Vertex<T> target,
+                                           Graph<T> graph) {
+        if (start == null || target == null || graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
         }
+        if (!graph.getAdjacencyList().containsKey(start)
+                || !graph.getAdjacencyList().containsKey(target)) {
+            throw new IllegalArgumentException("Vertex does not exist in "
+                    + "graph");
+        }
+    }
 
-        return dijkstra;
+    /**
+     * Private helper that builds the adjacency list of a graph with every
+     * edge reversed.
+     *
+     * @param adjList Adjacency List
+     * @param <T>     Type of elements stored
+     * @return for every vertex, the vertices with an edge into it
+     */
+    private static <T> Map<Vertex<T>, List<VertexDistancePair<T>>>
+        reverseAdjacency(Map<Vertex<T>, List<VertexDistancePair<T>>> adjList) {
+        Map<Vertex<T>, List<VertexDistancePair<T>>> reverse = new HashMap<>();
+        for (Vertex<T> vertex : adjList.keySet()) {
+            reverse.put(vertex, new ArrayList<>());
+        }
+        for (Map.Entry<Vertex<T>, List<VertexDistancePair<T>>> entry
+                : adjList.entrySet()) {
+            for (VertexDistancePair<T> vd : entry.getValue()) {
+                reverse.get(vd.getVertex()).add(new VertexDistancePair<>(
+                        entry.getKey(), vd.getDistance()));
+            }
+        }
+        return reverse;
+    }
+
+    /**
+     * Private helper that follows parent links from a vertex back to the
+     * root of its search.
+     *
+     * @param v      Id of the vertex to start from
+     * @param parent Parent id of every vertex, -1 at the root
+     * @param index  Numbering of the vertices
+     * @param <T>    Type of elements stored
+     * @return the vertices from {@code v} back to the root
+     */
+    private static <T> List<Vertex<T>> walkBack(int v, int[] parent,
+                                                VertexIndex<T> index) {
+        List<Vertex<T>> path = new ArrayList<>();
+        for (; v >= 0; v = parent[v]) {
+            path.add(index.getVertex(v));
+        }
+        return path;
     }
 
     /**
@@ -227,9 +683,11 @@ public class GraphAlgorithms {
      * one valid MST that can be formed. In addition, only an undirected graph
      * will be passed in.
      * <p>
-     * You may import/use {@code java.util.PriorityQueue},
-     * {@code java.util.Set}, and any class that implements the aforementioned
-     * interface.
+     * Every vertex outside the tree sits in an {@link IndexMinHeap} once,
+     * keyed by its cheapest edge to any vertex in the tree, so the tree
+     * always grows by the lightest edge leaving it. The search ends when the
+     * heap empties, so a disconnected graph returns null rather than
+     * looping. {@link MinimumSpanningTree} also has Kruskal's algorithm.
      *
      * @param start the Vertex you are starting at
      * @param graph the Graph we are searching
@@ -248,35 +706,445 @@ public class GraphAlgorithms {
             throw new IllegalArgumentException("Start node does not exist in "
                     + "graph");
         }
-        Set<Vertex<T>> visited = new HashSet<>();
-        Set<Edge<T>> mst = new HashSet<>();
+        VertexIndex<T> index = new VertexIndex<>(graph);
         Map<Vertex<T>, List<VertexDistancePair<T>>> adjList =
                 graph.getAdjacencyList();
-        PriorityQueue<Edge<T>> pq = new PriorityQueue<>();
+        int n = index.size();
+        int s = index.indexOf(start);
+        int[] parent = new int[n];
+        long[] inTree = new long[bitsetLength(n)];
+        Set<Edge<T>> mst = new HashSet<>();
 
+        //Every vertex outside the tree is in the heap at most once, keyed by
+        //its cheapest edge into the whole tree, not just the last vertex
+        IndexMinHeap heap = new IndexMinHeap(n);
+        heap.insertOrDecrease(s, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            mark(inTree, u);
+            if (u != s) {
+                mst.add(new Edge<>(index.getVertex(parent[u]),
+                        index.getVertex(u), (int) heap.getKey(u), false));
+            }
+            for (VertexDistancePair<T> vd : adjList.get(index.getVertex(u))) {
+                int v = index.indexOf(vd.getVertex());
+                if (!isMarked(inTree, v)
+                        && heap.insertOrDecrease(v, vd.getDistance())) {
+                    parent[v] = u;
+                }
+            }
+        }
 
-        Vertex<T> curr = start;
+        //The heap empties once the start's component is spanned
+        if (mst.size() != n - 1) {
+            return null;
+        }
+        return mst;
+    }
+
+    /**
+     * Perform breadth first search on a CSR graph, starting at vertex
+     * {@code start}. Neighbors are explored in arc order, so the result
+     * matches {@link #breadthFirstSearch(Vertex, Graph)} on the graph the CSR
+     * form was built from.
+     * <p>
+     * Visited vertices are tracked in a bitset and the queue is an int
+     * array, which doubles as the visit order, so nothing is allocated per
+     * vertex or per edge.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @return the vertices in the order that you visited them
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static int[] breadthFirstSearch(int start, CsrGraph graph) {
+        checkStart(start, graph);
+
+        int[] queue = new int[graph.getVertexCount()];
+        long[] visited = new long[bitsetLength(graph.getVertexCount())];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        mark(visited, start);
 
-        while (mst.size() != adjList.size() - 1) {
-            List<VertexDistancePair<T>> vdpairs = adjList.get(curr);
-            for (VertexDistancePair<T> vd : vdpairs) {
-                Vertex<T> vert = vd.getVertex();
-                if (!visited.contains(vert)) {
-                    pq.add(new Edge<>(curr, vert, vd.getDistance(), false));
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = graph.edgeStart(v); e < graph.edgeEnd(v); e++) {
+                int child = graph.getTarget(e);
+                if (!isMarked(visited, child)) {
+                    mark(visited, child);
+                    queue[tail++] = child;
                 }
             }
+        }
+        return Arrays.copyOf(queue, tail);
+    }
 
-            if (!pq.isEmpty()) {
-                Edge<T> currEdge = pq.remove();
-                mst.add(currEdge);
-                visited.add(currEdge.getU());
-                visited.add(currEdge.getV());
-                curr = currEdge.getV();
+    /**
+     * Perform breadth first search on a CSR graph, starting at vertex
+     * {@code start}, and record the level and parent of every vertex
+     * reached. If {@code target} is not -1, the search stops as soon as the
+     * target is discovered, leaving the levels past the target's
+     * unexplored.
+     * <p>
+     * The level array doubles as the visited set and the queue doubles as
+     * the visit order, so apart from the three result arrays nothing is
+     * allocated.
+     *
+     * @param start the vertex you are starting at
+     * @param target the vertex to stop at, or -1 to search everything
+     * reachable
+     * @param graph the graph we are searching
+     * @return the visit order, levels and parents of the search
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static BfsResult breadthFirstSearch(int start, int target,
+                                               CsrGraph graph) {
+        checkStart(start, graph);
+        if ((target < -1) || (target >= graph.getVertexCount())) {
+            throw new IllegalArgumentException("Vertex does not exist");
+        }
+
+        int n = graph.getVertexCount();
+        int[] queue = new int[n];
+        int[] levels = new int[n];
+        int[] parents = new int[n];
+        Arrays.fill(levels, -1);
+        Arrays.fill(parents, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        levels[start] = 0;
+        boolean found = (start == target);
 
+        while ((head < tail) && !found) {
+            int v = queue[head++];
+            for (int e = graph.edgeStart(v);
+                 (e < graph.edgeEnd(v)) && !found; e++) {
+                int child = graph.getTarget(e);
+                if (levels[child] < 0) {
+                    levels[child] = levels[v] + 1;
+                    parents[child] = v;
+                    queue[tail++] = child;
+                    found = (child == target);
+                }
             }
         }
+        return new BfsResult(Arrays.copyOf(queue, tail), levels, parents);
+    }
 
-        return mst;
+    /**
+     * Perform depth first search on a CSR graph, starting at vertex
+     * {@code start}. The visit order matches
+     * {@link #depthFirstSearch(Vertex, Graph)} on the graph the CSR form was
+     * built from.
+     * <p>
+     * The search keeps its own stack of vertices and the next arc to try
+     * from each, so deep graphs cannot overflow the thread stack.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @return the vertices in the order that you visited them
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static int[] depthFirstSearch(int start, CsrGraph graph) {
+        checkStart(start, graph);
+
+        int n = graph.getVertexCount();
+        int[] order = new int[n];
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        long[] visited = new long[bitsetLength(n)];
+        int count = 0;
+        int depth = 0;
+
+        mark(visited, start);
+        order[count++] = start;
+        stack[depth] = start;
+        cursor[depth++] = graph.edgeStart(start);
+
+        while (depth > 0) {
+            int v = stack[depth - 1];
+            int e = cursor[depth - 1];
+            if (e == graph.edgeEnd(v)) {
+                depth--;
+                continue;
+            }
+            cursor[depth - 1] = e + 1;
+            int child = graph.getTarget(e);
+            if (!isMarked(visited, child)) {
+                mark(visited, child);
+                order[count++] = child;
+                stack[depth] = child;
+                cursor[depth++] = graph.edgeStart(child);
+            }
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    /**
+     * Find the shortest distance from vertex {@code start} to every vertex of
+     * a CSR graph whose weights are not negative.
+     * <p>
+     * The frontier is an {@link IndexMinHeap}, so each vertex is in it at
+     * most once and an improved distance lowers its key in place.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @return the shortest distance to every vertex, indexed by vertex, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static int[] dijkstras(int start, CsrGraph graph) {
+        checkStart(start, graph);
+        return dijkstra(graph, start, -1);
+    }
+
+    /**
+     * Find the shortest distance from vertex {@code start} to vertex
+     * {@code target} of a CSR graph whose weights are not negative. The
+     * search stops as soon as the target is settled.
+     *
+     * @param start the vertex you are starting at
+     * @param target the vertex you want the distance to
+     * @param graph the graph we are searching
+     * @return the shortest distance from start to target, or
+     * Integer.MAX_VALUE if no path exists
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} or {@code target}
+     *                                  doesn't exist in the graph
+     */
+    public static int dijkstras(int start, int target, CsrGraph graph) {
+        checkStart(start, graph);
+        checkStart(target, graph);
+        return dijkstra(graph, start, target)[target];
+    }
+
+    /**
+     * Private helper method for Dijkstra's algorithm on a CSR graph.
+     *
+     * @param graph  Graph to search
+     * @param start  Vertex to start from
+     * @param target Vertex to stop at, or -1 to settle every vertex
+     * @return the distance to every vertex, final for every settled vertex
+     * and Integer.MAX_VALUE for those not reached
+     */
+    private static int[] dijkstra(CsrGraph graph, int start, int target) {
+        int[] dist = new int[graph.getVertexCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[start] = 0;
+
+        IndexMinHeap heap = new IndexMinHeap(graph.getVertexCount());
+        heap.insertOrDecrease(start, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            if (u == target) {
+                break;
+            }
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getTarget(e);
+                long alt = (long) dist[u] + graph.getWeight(e);
+                if (alt < dist[v]) {
+                    dist[v] = (int) alt;
+                    heap.insertOrDecrease(v, alt);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Run Prim's algorithm on an undirected CSR graph, starting at vertex
+     * {@code start}, and return the minimum spanning tree as the arcs it
+     * uses. Each arc leads from a vertex already in the tree to the vertex
+     * it added; {@link CsrGraph#getSource(int)} recovers the former.
+     * <p>
+     * Every vertex outside the tree sits in an {@link IndexMinHeap} once,
+     * keyed by its cheapest arc into the tree.
+     *
+     * @param start the vertex you are starting at
+     * @param graph the graph we are searching
+     * @return the arcs of the MST; null if the graph is disconnected
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    public static int[] prims(int start, CsrGraph graph) {
+        checkStart(start, graph);
+
+        int n = graph.getVertexCount();
+        int[] bestArc = new int[n];
+        int[] tree = new int[n - 1];
+        long[] inTree = new long[bitsetLength(n)];
+        int count = 0;
+
+        IndexMinHeap heap = new IndexMinHeap(n);
+        heap.insertOrDecrease(start, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            mark(inTree, u);
+            if (u != start) {
+                tree[count++] = bestArc[u];
+            }
+            for (int e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getTarget(e);
+                if (!isMarked(inTree, v)
+                        && heap.insertOrDecrease(v, graph.getWeight(e))) {
+                    bestArc[v] = e;
+                }
+            }
+        }
+        return (count == n - 1) ? tree : null;
+    }
+
+    /**
+     * Private helper that validates the inputs of the CSR searches.
+     *
+     * @param start the vertex to start at
+     * @param graph the graph to search
+     * @throws IllegalArgumentException if graph is null, or if
+     *                                  {@code start} doesn't exist in the graph
+     */
+    private static void checkStart(int start, CsrGraph graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if ((start < 0) || (start >= graph.getVertexCount())) {
+            throw new IllegalArgumentException("Vertex does not exist");
+        }
+    }
+
+    /**
+     * Private helper to compute the number of longs in a bitset of n bits.
+     *
+     * @param n the number of bits
+     * @return the length of the bitset
+     */
+    private static int bitsetLength(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    /**
+     * Private helper that sets a bit of a bitset.
+     *
+     * @param bits the bitset
+     * @param i the bit to set
+     */
+    private static void mark(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Private helper that tests a bit of a bitset.
+     *
+     * @param bits the bitset
+     * @param i the bit to test
+     * @return true if the bit is set
+     */
+    private static boolean isMarked(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * A vertex on the explicit stack of {@link #dfs}, with the neighbors it
+     * has left to explore.
+     *
+     * @param <T> the data type representing the vertices in the graph
+     */
+    private static final class DfsFrame<T> {
+        private final Vertex<T> vertex;
+        private final Vertex<T> parent;
+        private final Iterator<VertexDistancePair<T>> neighbors;
+        private boolean parentSkipped;
+
+        /**
+         * Create a frame for a vertex that was just discovered.
+         *
+         * @param vertex the vertex
+         * @param parent the vertex it was discovered from, or null
+         * @param pairs the adjacency list of the vertex
+         */
+        private DfsFrame(Vertex<T> vertex, Vertex<T> parent,
+                         List<VertexDistancePair<T>> pairs) {
+            this.vertex = vertex;
+            this.parent = parent;
+            this.neighbors = pairs.iterator();
+        }
+    }
+
+    /**
+     * One direction of a point-to-point search: its frontier, tentative
+     * distances and parent links, indexed by ids from a shared
+     * {@link VertexIndex}.
+     *
+     * @param <T> the data type representing the vertices in the graph
+     */
+    private static final class SearchSide<T> {
+        private final Map<Vertex<T>, List<VertexDistancePair<T>>> adjList;
+        private final VertexIndex<T> index;
+        private final IndexMinHeap heap;
+        private final long[] dist;
+        private final int[] parent;
+
+        /**
+         * Create a search with nothing reached yet.
+         *
+         * @param adjList the adjacency list to follow
+         * @param index the numbering of the vertices, filled in as they are
+         * reached
+         */
+        private SearchSide(Map<Vertex<T>, List<VertexDistancePair<T>>> adjList,
+                           VertexIndex<T> index) {
+            this.adjList = adjList;
+            this.index = index;
+            int n = adjList.size();
+            heap = new IndexMinHeap(n);
+            dist = new long[n];
+            parent = new int[n];
+            Arrays.fill(dist, INFINITY);
+        }
+
+        /**
+         * Records a shorter distance to a vertex and queues it with the
+         * given key, if the distance is an improvement.
+         *
+         * @param v the vertex reached
+         * @param distance its distance from this side's origin
+         * @param from the vertex it was reached from, or -1
+         * @param key its priority in the frontier
+         */
+        private void relax(int v, long distance, int from, long key) {
+            if (distance < dist[v]) {
+                dist[v] = distance;
+                parent[v] = from;
+                heap.insertOrDecrease(v, key);
+            }
+        }
+
+        /**
+         * Returns the smallest key in the frontier.
+         *
+         * @return the key of the next vertex to settle
+         */
+        private long minKey() {
+            return heap.getKey(heap.peek());
+        }
+
+        /**
+         * Returns the neighbors of a vertex in this side's direction.
+         *
+         * @param u the vertex
+         * @return its adjacency list, empty if it has none
+         */
+        private List<VertexDistancePair<T>> neighbors(int u) {
+            List<VertexDistancePair<T>> pairs =
+                    adjList.get(index.getVertex(u));
+            return (pairs == null) ? Collections.emptyList() : pairs;
+        }
     }
 
 }
@@ -0,0 +1,401 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads a {@link CsrGraph} straight from an edge list file, without
+ * building an {@link Edge} or a {@link Graph} first.
+ * <p>
+ * Files are memory-mapped a window at a time, and read twice. The first
+ * pass counts the arcs of every vertex, so the second can put each arc in
+ * its final place in arrays of exactly the right size. Apart from a buffer
+ * of counts that grows while the first pass is still finding vertices,
+ * peak memory is the finished graph itself. Vertices are the ids in the
+ * file, so a graph has one vertex more than its largest id. As in
+ * {@link Graph}, an undirected edge becomes an arc each way, and the arcs
+ * of a vertex keep the order of the file.
+ * <p>
+ * The file must not change between the two passes.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class GraphLoader {
+
+    /**
+     * Bytes in one binary edge record.
+     */
+    private static final int RECORD_BYTES = 12;
+
+    /**
+     * Bytes mapped at once. A multiple of {@link #RECORD_BYTES}, so no
+     * binary record straddles two windows.
+     */
+    private static final int WINDOW_BYTES = RECORD_BYTES << 22;
+
+    /**
+     * Weight of an edge whose line gives none.
+     */
+    private static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * Smallest vertex id too large to index an array, leaving room for the
+     * extra slot of the offsets.
+     */
+    private static final int MAX_ID = Integer.MAX_VALUE - 8;
+
+    /**
+     * Utility class, no instances.
+     */
+    private GraphLoader() {
+    }
+
+    /**
+     * Load a graph from a text edge list, one edge per line as
+     * {@code u v} or {@code u v weight}, with the fields separated by
+     * spaces, tabs or commas, which covers both plain edge lists and CSV.
+     * Edges with no weight get a weight of 1. Blank lines and lines
+     * starting with {@code #} or {@code %} are skipped, and so is the first
+     * other line if it doesn't start with a number, such as a CSV header.
+     *
+     * @param path the file to read
+     * @param directed whether the edges are directed
+     * @return the graph in the file
+     * @throws IllegalArgumentException if path is null
+     * @throws IOException if the file can't be read, a line isn't an edge,
+     *                     or an id is too large to index an array
+     */
+    public static CsrGraph loadEdgeList(Path path, boolean directed)
+            throws IOException {
+        return load(path, directed, false);
+    }
+
+    /**
+     * Load a graph from a binary edge list: one record per edge, each three
+     * big-endian 32-bit ints {@code u}, {@code v} and {@code weight}, and
+     * nothing else, the format {@link java.io.DataOutputStream#writeInt(int)}
+     * produces.
+     *
+     * @param path the file to read
+     * @param directed whether the edges are directed
+     * @return the graph in the file
+     * @throws IllegalArgumentException if path is null
+     * @throws IOException if the file can't be read, its length isn't a
+     *                     whole number of records, or an id is negative or
+     *                     too large to index an array
+     */
+    public static CsrGraph loadBinary(Path path, boolean directed)
+            throws IOException {
+        return load(path, directed, true);
+    }
+
+    /**
+     * Private helper that reads a file twice, counting arcs and then filling
+     * them in.
+     *
+     * @param path the file to read
+     * @param directed whether the edges are directed
+     * @param binary whether the file holds binary records rather than text
+     * @return the graph in the file
+     * @throws IOException if the file can't be read or is malformed
+     */
+    private static CsrGraph load(Path path, boolean directed, boolean binary)
+            throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (binary && (size % RECORD_BYTES != 0)) {
+                throw new IOException(path + " is not a whole number of "
+                        + "edge records");
+            }
+
+            //First pass: arcs per vertex, grown as larger ids turn up
+            int[] counts = new int[16];
+            int n = 0;
+            long arcs = 0;
+            int[] edge = new int[3];
+            EdgeReader in = binary ? new RecordWindow(channel, size)
+                    : new TextWindow(channel, size);
+            while (in.next(edge)) {
+                int high = Math.max(edge[0], edge[1]);
+                if (high >= counts.length) {
+                    long grown = Math.max(high + 2L, counts.length * 2L);
+                    counts = Arrays.copyOf(counts,
+                            (int) Math.min(grown, MAX_ID));
+                }
+                n = Math.max(n, high + 1);
+                counts[edge[0]]++;
+                arcs++;
+                if (!directed) {
+                    counts[edge[1]]++;
+                    arcs++;
+                }
+            }
+            if (arcs > Integer.MAX_VALUE - 8) {
+                throw new IOException(path + " has more arcs than fit in "
+                        + "an array");
+            }
+
+            //offsets[v] starts as the first arc of v and is the fill cursor
+            int[] offsets = Arrays.copyOf(counts, n + 1);
+            counts = null;
+            int start = 0;
+            for (int v = 0; v <= n; v++) {
+                int count = offsets[v];
+                offsets[v] = start;
+                start += count;
+            }
+
+            int[] targets = new int[(int) arcs];
+            int[] weights = new int[(int) arcs];
+            in = binary ? new RecordWindow(channel, size)
+                    : new TextWindow(channel, size);
+            while (in.next(edge)) {
+                int arc = offsets[edge[0]]++;
+                targets[arc] = edge[1];
+                weights[arc] = edge[2];
+                if (!directed) {
+                    arc = offsets[edge[1]]++;
+                    targets[arc] = edge[0];
+                    weights[arc] = edge[2];
+                }
+            }
+
+            //Every cursor now sits on the next vertex's first arc
+            System.arraycopy(offsets, 0, offsets, 1, n);
+            offsets[0] = 0;
+            return new CsrGraph(offsets, targets, weights, directed);
+        }
+    }
+
+    /**
+     * Reads the edges of a file one at a time.
+     */
+    private interface EdgeReader {
+
+        /**
+         * Reads the next edge.
+         *
+         * @param edge where to put the edge's source, target and weight
+         * @return true if an edge was read, false at the end of the file
+         * @throws IOException if the file can't be read or is malformed
+         */
+        boolean next(int[] edge) throws IOException;
+    }
+
+    /**
+     * Maps a file a window at a time, moving the window along as it is
+     * used up.
+     */
+    private abstract static class MappedWindow {
+        private final FileChannel channel;
+        private final long size;
+        private long mapped;
+        private MappedByteBuffer window;
+
+        /**
+         * Create a reader at the start of a file.
+         *
+         * @param channel the open file
+         * @param size the length of the file in bytes
+         */
+        MappedWindow(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        /**
+         * Returns the current window, moved along to the next part of the
+         * file if it is used up.
+         *
+         * @return the window, or null at the end of the file
+         * @throws IOException if the file can't be mapped
+         */
+        MappedByteBuffer window() throws IOException {
+            if ((window == null) || !window.hasRemaining()) {
+                if (mapped == size) {
+                    return null;
+                }
+                long length = Math.min(WINDOW_BYTES, size - mapped);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, mapped,
+                        length);
+                mapped += length;
+            }
+            return window;
+        }
+    }
+
+    /**
+     * Reads edges from binary records.
+     */
+    private static final class RecordWindow extends MappedWindow
+            implements EdgeReader {
+
+        private long record;
+
+        /**
+         * Create a reader at the start of a file.
+         *
+         * @param channel the open file
+         * @param size the length of the file in bytes
+         */
+        private RecordWindow(FileChannel channel, long size) {
+            super(channel, size);
+        }
+
+        @Override
+        public boolean next(int[] edge) throws IOException {
+            MappedByteBuffer in = window();
+            if (in == null) {
+                return false;
+            }
+            edge[0] = in.getInt();
+            edge[1] = in.getInt();
+            edge[2] = in.getInt();
+            record++;
+            if ((edge[0] < 0) || (edge[1] < 0)) {
+                throw new IOException("Negative vertex id in record "
+                        + record);
+            }
+            if ((edge[0] >= MAX_ID) || (edge[1] >= MAX_ID)) {
+                throw new IOException("Vertex id too large in record "
+                        + record);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads edges from lines of text.
+     */
+    private static final class TextWindow extends MappedWindow
+            implements EdgeReader {
+
+        private long line;
+        private boolean started;
+
+        /**
+         * Create a reader at the start of a file.
+         *
+         * @param channel the open file
+         * @param size the length of the file in bytes
+         */
+        private TextWindow(FileChannel channel, long size) {
+            super(channel, size);
+        }
+
+        @Override
+        public boolean next(int[] edge) throws IOException {
+            while (true) {
+                int c = read();
+                if (c < 0) {
+                    return false;
+                }
+                line++;
+                int fields = parseLine(c, edge);
+                if (fields == 2) {
+                    edge[2] = DEFAULT_WEIGHT;
+                }
+                if (fields >= 2) {
+                    started = true;
+                    if ((edge[0] < 0) || (edge[1] < 0)) {
+                        throw new IOException("Negative vertex id on line "
+                                + line);
+                    }
+                    if ((edge[0] >= MAX_ID) || (edge[1] >= MAX_ID)) {
+                        throw new IOException("Vertex id too large on line "
+                                + line);
+                    }
+                    return true;
+                }
+                if (fields == 1) {
+                    throw new IOException("No target vertex on line " + line);
+                }
+            }
+        }
+
+        /**
+         * Private helper that reads the numbers on the rest of a line.
+         *
+         * @param c the first character of the line
+         * @param edge where to put the numbers
+         * @return the number of numbers on the line, 0 if it is blank or
+         * skipped
+         * @throws IOException if the file can't be read or the line is
+         *                     malformed
+         */
+        private int parseLine(int c, int[] edge) throws IOException {
+            if ((c == '#') || (c == '%')) {
+                skipLine(c);
+                return 0;
+            }
+            int fields = 0;
+            while ((c >= 0) && (c != '\n')) {
+                if ((c == ' ') || (c == '\t') || (c == ',') || (c == '\r')) {
+                    c = read();
+                    continue;
+                }
+                boolean negative = c == '-';
+                if (negative) {
+                    c = read();
+                }
+                if ((c < '0') || (c > '9')) {
+                    //Only the first line with content can be a header
+                    if (!started && (fields == 0) && !negative) {
+                        started = true;
+                        skipLine(c);
+                        return 0;
+                    }
+                    throw new IOException("Malformed number on line " + line);
+                }
+                if (fields == 3) {
+                    throw new IOException("Too many fields on line " + line);
+                }
+                long value = 0;
+                while ((c >= '0') && (c <= '9')) {
+                    value = value * 10 + (c - '0');
+                    if (value > (long) Integer.MAX_VALUE + 1) {
+                        throw new IOException("Number too large on line "
+                                + line);
+                    }
+                    c = read();
+                }
+                value = negative ? -value : value;
+                if (value > Integer.MAX_VALUE) {
+                    throw new IOException("Number too large on line " + line);
+                }
+                edge[fields++] = (int) value;
+            }
+            return fields;
+        }
+
+        /**
+         * Private helper that skips to the start of the next line.
+         *
+         * @param c the current character
+         * @throws IOException if the file can't be read
+         */
+        private void skipLine(int c) throws IOException {
+            while ((c >= 0) && (c != '\n')) {
+                c = read();
+            }
+        }
+
+        /**
+         * Private helper that reads one byte.
+         *
+         * @return the byte, or -1 at the end of the file
+         * @throws IOException if the file can't be read
+         */
+        private int read() throws IOException {
+            MappedByteBuffer in = window();
+            return (in == null) ? -1 : (in.get() & 0xFF);
+        }
+    }
+}
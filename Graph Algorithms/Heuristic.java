@@ -0,0 +1,26 @@
+/**
+ * An estimate of the remaining distance to a target, used by
+ * {@link GraphAlgorithms#shortestPath(Vertex, Vertex, Graph, Heuristic)} to
+ * steer A* search toward the target.
+ * <p>
+ * For the path found to be a shortest one, the estimate must be admissible:
+ * never more than the true distance. Coordinates carried in the vertex data
+ * give one, for example the straight-line distance when every edge is at
+ * least as long as the straight line between its ends. An estimate of 0
+ * everywhere is admissible and turns A* into plain Dijkstra.
+ *
+ * @param <T> the data type representing the vertices in the graph
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public interface Heuristic<T> {
+
+    /**
+     * Estimates the distance from a vertex to the target.
+     *
+     * @param from the vertex to estimate from
+     * @param target the target of the search
+     * @return a lower bound on the distance, not negative
+     */
+    int estimate(Vertex<T> from, Vertex<T> target);
+}
@@ -0,0 +1,444 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Shortest distances from one source vertex of a {@link DynamicGraph}, with
+ * no negative edge weights, kept up to date as edges are added, removed
+ * and reweighted.
+ * <p>
+ * Besides the distances, every reached vertex remembers the vertex before
+ * it on one shortest path, which makes a shortest path tree. Each change
+ * repairs only the part of the tree it can affect, in the style of
+ * Ramalingam and Reps:
+ * <ul>
+ * <li>When an edge gets cheaper or is added, the vertices it now brings
+ * closer are found by a Dijkstra search that starts at the edge and stops
+ * wherever distances don't drop.</li>
+ * <li>When an edge gets dearer or is removed, nothing changes unless it
+ * is in the tree. If it is, only the subtree below it can move. Those
+ * vertices are cut loose, given the best distance they can get from an
+ * edge leaving the rest of the tree, and settled by a Dijkstra search over
+ * the subtree alone.</li>
+ * </ul>
+ * Make every change to the graph through this class while it is in use.
+ * A change made to the graph directly can't be repaired, so the next call
+ * here throws a {@link ConcurrentModificationException}.
+ *
+ * @param <T> the data type representing the vertices in the graph
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class IncrementalShortestPaths<T> {
+
+    /**
+     * Distance of a vertex not reached.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * Parent of the source and of vertices not reached.
+     */
+    private static final int NO_PARENT = -1;
+
+    private final DynamicGraph<T> graph;
+    private final Vertex<T> source;
+    private final VertexIndex<T> index;
+    private long[] dist;
+    private int[] parents;
+    private IndexMinHeap heap;
+    private int heapCapacity;
+    private int expectedModCount;
+
+    /**
+     * Compute the shortest distances from a source vertex with a full
+     * Dijkstra search.
+     *
+     * @param graph the graph to search
+     * @param source the vertex distances are measured from
+     * @throws IllegalArgumentException if any input is null, if
+     *                                  {@code source} doesn't exist in the
+     *                                  graph, or if an edge weight is
+     *                                  negative
+     */
+    public IncrementalShortestPaths(DynamicGraph<T> graph, Vertex<T> source) {
+        if ((graph == null) || (source == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (!graph.containsVertex(source)) {
+            throw new IllegalArgumentException("Start node does not exist in "
+                    + "graph");
+        }
+        this.graph = graph;
+        this.source = source;
+        index = new VertexIndex<>();
+        dist = new long[0];
+        parents = new int[0];
+
+        for (Vertex<T> vertex : graph.getVertices()) {
+            idOf(vertex);
+            for (int weight : graph.getOutEdges(vertex).values()) {
+                checkWeight(weight);
+            }
+        }
+        int s = idOf(source);
+        dist[s] = 0;
+        heap().insertOrDecrease(s, 0);
+        settle();
+        expectedModCount = graph.getModCount();
+    }
+
+    /**
+     * Adds an edge to the graph and updates the distances it shortens.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @param weight the weight of the edge
+     * @throws IllegalArgumentException if u or v is null, if the edge is
+     *                                  already in the graph, or if weight is
+     *                                  negative
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public void addEdge(Vertex<T> u, Vertex<T> v, int weight) {
+        checkCurrent();
+        checkWeight(weight);
+        graph.addEdge(u, v, weight);
+        expectedModCount = graph.getModCount();
+        decreased(idOf(u), idOf(v), weight);
+    }
+
+    /**
+     * Removes an edge from the graph and updates the distances that relied
+     * on it.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @throws IllegalArgumentException if u or v is null
+     * @throws NoSuchElementException if the edge is not in the graph
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public void removeEdge(Vertex<T> u, Vertex<T> v) {
+        checkCurrent();
+        graph.removeEdge(u, v);
+        expectedModCount = graph.getModCount();
+        increased(index.indexOf(u), index.indexOf(v));
+    }
+
+    /**
+     * Changes the weight of an edge in the graph and updates the distances
+     * that change with it.
+     *
+     * @param u the start of the edge, or one end if undirected
+     * @param v the end of the edge, or the other end if undirected
+     * @param weight the new weight of the edge
+     * @throws IllegalArgumentException if u or v is null, or if weight is
+     *                                  negative
+     * @throws NoSuchElementException if the edge is not in the graph
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public void updateWeight(Vertex<T> u, Vertex<T> v, int weight) {
+        checkCurrent();
+        checkWeight(weight);
+        int old = graph.updateWeight(u, v, weight);
+        expectedModCount = graph.getModCount();
+        if (weight < old) {
+            decreased(index.indexOf(u), index.indexOf(v), weight);
+        } else if (weight > old) {
+            increased(index.indexOf(u), index.indexOf(v));
+        }
+    }
+
+    /**
+     * Returns the shortest distance from the source to a vertex.
+     *
+     * @param vertex the vertex
+     * @return the shortest distance, or Integer.MAX_VALUE if no path exists
+     * or the shortest one is Integer.MAX_VALUE or longer
+     * @throws IllegalArgumentException if vertex is null
+     * @throws NoSuchElementException if the vertex is not in the graph
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public int getDistance(Vertex<T> vertex) {
+        return toInt(dist[checkVertex(vertex)]);
+    }
+
+    /**
+     * Returns a shortest path from the source to a vertex.
+     *
+     * @param vertex the vertex to find a path to
+     * @return the vertices of the path, from the source to {@code vertex};
+     * null if no path exists or, matching {@link #getDistance}, the shortest
+     * one is Integer.MAX_VALUE or longer
+     * @throws IllegalArgumentException if vertex is null
+     * @throws NoSuchElementException if the vertex is not in the graph
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public List<Vertex<T>> getPathTo(Vertex<T> vertex) {
+        int v = checkVertex(vertex);
+        if (toInt(dist[v]) == Integer.MAX_VALUE) {
+            return null;
+        }
+        List<Vertex<T>> path = new ArrayList<>();
+        for (; v != NO_PARENT; v = parents[v]) {
+            path.add(index.getVertex(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the shortest distance from the source to every vertex, as
+     * {@link GraphAlgorithms#dijkstras(Vertex, Graph)} does.
+     *
+     * @return a map of the shortest distances from the source to every
+     * vertex in the graph, Integer.MAX_VALUE where no path exists
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    public Map<Vertex<T>, Integer> getDistances() {
+        checkCurrent();
+        Map<Vertex<T>, Integer> out = new HashMap<>();
+        for (int v = 0; v < index.size(); v++) {
+            out.put(index.getVertex(v), toInt(dist[v]));
+        }
+        return out;
+    }
+
+    /**
+     * Returns the vertex distances are measured from.
+     *
+     * @return the source vertex
+     */
+    public Vertex<T> getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the graph being searched.
+     *
+     * @return the graph
+     */
+    public DynamicGraph<T> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Private helper that repairs the distances after the edge from u to v
+     * got cheaper or was added. In an undirected graph the edge is tried
+     * both ways.
+     *
+     * @param u the id of the start of the edge
+     * @param v the id of the end of the edge
+     * @param weight the new weight of the edge
+     */
+    private void decreased(int u, int v, int weight) {
+        heap();
+        relax(u, v, weight);
+        if (!graph.isDirected()) {
+            relax(v, u, weight);
+        }
+        settle();
+    }
+
+    /**
+     * Private helper that repairs the distances after the edge from u to v
+     * got dearer or was removed. In an undirected graph the edge is
+     * repaired both ways.
+     *
+     * @param u the id of the start of the edge
+     * @param v the id of the end of the edge
+     */
+    private void increased(int u, int v) {
+        rebuildBelow(u, v);
+        if (!graph.isDirected()) {
+            rebuildBelow(v, u);
+        }
+    }
+
+    /**
+     * Private helper that recomputes the subtree below v, if the tree
+     * reaches v through u. Vertices outside the subtree don't use the edge
+     * on their tree paths, so their distances can't have changed.
+     *
+     * @param u the id of the start of the edge
+     * @param v the id of the end of the edge
+     */
+    private void rebuildBelow(int u, int v) {
+        if (parents[v] != u) {
+            return;
+        }
+
+        //Collect the subtree through the parent links before cutting it
+        List<Integer> subtree = new ArrayList<>();
+        subtree.add(v);
+        for (int i = 0; i < subtree.size(); i++) {
+            Vertex<T> x = index.getVertex(subtree.get(i));
+            for (Vertex<T> y : graph.getOutEdges(x).keySet()) {
+                int id = index.indexOf(y);
+                if (parents[id] == subtree.get(i)) {
+                    subtree.add(id);
+                }
+            }
+        }
+        for (int x : subtree) {
+            dist[x] = INFINITY;
+            parents[x] = NO_PARENT;
+        }
+
+        //Cut vertices are the only ones still at infinity that edges from
+        //reached vertices can improve
+        heap();
+        for (int x : subtree) {
+            for (Map.Entry<Vertex<T>, Integer> edge
+                    : graph.getInEdges(index.getVertex(x)).entrySet()) {
+                int y = index.indexOf(edge.getKey());
+                if ((dist[y] != INFINITY)
+                        && (dist[y] + edge.getValue() < dist[x])) {
+                    dist[x] = dist[y] + edge.getValue();
+                    parents[x] = y;
+                }
+            }
+            if (dist[x] != INFINITY) {
+                heap.insertOrDecrease(x, dist[x]);
+            }
+        }
+        settle();
+    }
+
+    /**
+     * Private helper that lowers the distance of v through the edge from
+     * u, queueing v if it drops. The heap must already have room for v.
+     *
+     * @param u the id of the start of the edge
+     * @param v the id of the end of the edge
+     * @param weight the weight of the edge
+     */
+    private void relax(int u, int v, int weight) {
+        if ((dist[u] != INFINITY) && (dist[u] + weight < dist[v])) {
+            dist[v] = dist[u] + weight;
+            parents[v] = u;
+            heap.insertOrDecrease(v, dist[v]);
+        }
+    }
+
+    /**
+     * Private helper that runs Dijkstra's algorithm from whatever vertices
+     * are queued, until no distance drops any more.
+     */
+    private void settle() {
+        while (!heap.isEmpty()) {
+            int u = heap.removeMin();
+            for (Map.Entry<Vertex<T>, Integer> edge
+                    : graph.getOutEdges(index.getVertex(u)).entrySet()) {
+                relax(u, index.indexOf(edge.getKey()), edge.getValue());
+            }
+        }
+    }
+
+    /**
+     * Private helper that returns the heap, replaced by a larger empty one
+     * if vertices have been added since it was made. The heap is always
+     * empty between changes, so nothing is lost, but it must not be
+     * replaced while vertices are queued.
+     *
+     * @return a heap with room for every vertex id
+     */
+    private IndexMinHeap heap() {
+        if (heapCapacity < index.size()) {
+            heapCapacity = Math.max(index.size(), heapCapacity * 2);
+            heap = new IndexMinHeap(heapCapacity);
+        }
+        return heap;
+    }
+
+    /**
+     * Private helper that returns the id of a vertex, giving it one with no
+     * distance yet if it is new.
+     *
+     * @param vertex the vertex
+     * @return the id of the vertex
+     */
+    private int idOf(Vertex<T> vertex) {
+        int id = index.add(vertex);
+        if (id >= dist.length) {
+            int length = Math.max(16, dist.length * 2);
+            int old = dist.length;
+            dist = Arrays.copyOf(dist, length);
+            parents = Arrays.copyOf(parents, length);
+            Arrays.fill(dist, old, length, INFINITY);
+            Arrays.fill(parents, old, length, NO_PARENT);
+        }
+        return id;
+    }
+
+    /**
+     * Private helper that checks the graph hasn't changed behind this
+     * object's back and finds a vertex's id.
+     *
+     * @param vertex the vertex
+     * @return the id of the vertex
+     * @throws IllegalArgumentException if vertex is null
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    private int checkVertex(Vertex<T> vertex) {
+        checkCurrent();
+        if (vertex == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        int id = index.indexOf(vertex);
+        if (id < 0) {
+            throw new NoSuchElementException("Vertex " + vertex
+                    + " is not in the graph");
+        }
+        return id;
+    }
+
+    /**
+     * Private helper that checks the graph hasn't changed behind this
+     * object's back.
+     *
+     * @throws ConcurrentModificationException if the graph was changed
+     *                                         directly
+     */
+    private void checkCurrent() {
+        if (graph.getModCount() != expectedModCount) {
+            throw new ConcurrentModificationException("Graph was changed "
+                    + "outside of its shortest paths");
+        }
+    }
+
+    /**
+     * Private helper that rejects negative weights, which Dijkstra's
+     * algorithm can't handle.
+     *
+     * @param weight the weight to check
+     * @throws IllegalArgumentException if weight is negative
+     */
+    private static void checkWeight(int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weights cannot be negative");
+        }
+    }
+
+    /**
+     * Private helper that converts a distance to the int form the other
+     * searches return, where a path too long for an int counts as no path.
+     *
+     * @param distance the distance
+     * @return the distance, or Integer.MAX_VALUE if it is Integer.MAX_VALUE
+     * or more
+     */
+    private static int toInt(long distance) {
+        return (int) Math.min(distance, Integer.MAX_VALUE);
+    }
+}
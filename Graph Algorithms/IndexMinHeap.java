@@ -0,0 +1,228 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary min heap of the ids {@code 0} up to {@code capacity - 1}, each
+ * with a long key, that supports decrease-key.
+ * <p>
+ * The heap remembers where every id sits, so lowering the key of an id
+ * already in the heap moves it in place instead of adding a second copy.
+ * The heap therefore never holds more than one entry per id, and nothing
+ * is allocated after construction. A wider node (a larger arity) makes
+ * the tree shallower, so decrease-key, the common operation in Dijkstra
+ * and Prim, does fewer swaps at the cost of more comparisons per
+ * removeMin.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class IndexMinHeap {
+
+    /**
+     * Children per node when no arity is given.
+     */
+    private static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    /**
+     * Create an empty 4-ary heap for the ids {@code 0} up to
+     * {@code capacity - 1}.
+     *
+     * @param capacity the number of ids
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public IndexMinHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Create an empty heap with the given arity for the ids {@code 0} up to
+     * {@code capacity - 1}.
+     *
+     * @param capacity the number of ids
+     * @param arity the number of children of each node, at least 2
+     * @throws IllegalArgumentException if capacity is negative or arity is
+     * less than 2
+     */
+    public IndexMinHeap(int capacity, int arity) {
+        if ((capacity < 0) || (arity < 2)) {
+            throw new IllegalArgumentException("Capacity cannot be negative "
+                    + "and arity must be at least 2");
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds an id with the given key, or lowers its key if it is already in
+     * the heap with a larger one.
+     *
+     * @param id the id to add
+     * @param key the key of the id
+     * @return true if the id was added or its key lowered, false if it was
+     * already in the heap with a key no larger than {@code key}
+     * @throws IndexOutOfBoundsException if id is not a valid id
+     */
+    public boolean insertOrDecrease(int id, long key) {
+        int position = positions[id];
+        if (position < 0) {
+            keys[id] = key;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        siftUp(position);
+        return true;
+    }
+
+    /**
+     * Removes the id with the smallest key.
+     *
+     * @return the id that was removed
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int removeMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the id with the smallest key without removing it.
+     *
+     * @return the id with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Returns the key an id was last given. Once the id is removed its key
+     * is kept until it is added again.
+     *
+     * @param id the id to look up
+     * @return the key of the id
+     */
+    public long getKey(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Returns whether an id is in the heap.
+     *
+     * @param id the id to look up
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     *
+     * @return the size of the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the heap is empty.
+     *
+     * @return true if the heap holds no ids
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every id, in time proportional to the number removed.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Private helper that moves the id at a position up until its parent's
+     * key is no larger. The id is held aside and written once at the end.
+     *
+     * @param position the position to sift from
+     */
+    private void siftUp(int position) {
+        int id = heap[position];
+        long key = keys[id];
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[position] = parentId;
+            positions[parentId] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Private helper that moves the id at a position down until no child
+     * has a smaller key.
+     *
+     * @param position the position to sift from
+     */
+    private void siftDown(int position) {
+        int id = heap[position];
+        long key = keys[id];
+        while (true) {
+            int first = position * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int child = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[heap[c]] < keys[heap[child]]) {
+                    child = c;
+                }
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimum spanning trees of undirected graphs, by Prim's or Kruskal's
+ * algorithm.
+ * <p>
+ * Prim's algorithm ({@link GraphAlgorithms#prims(Vertex, Graph)}) grows one
+ * tree from a start vertex, with an {@link IndexMinHeap} holding the
+ * cheapest edge into the tree for every vertex outside it. Each heap
+ * operation is O(log V), and most edges only cost an adjacency lookup, so
+ * it does best when there are many edges per vertex. Kruskal's algorithm
+ * sorts the edge list once and joins components with a
+ * {@link DisjointSet}, in O(E log E), which is less work when edges are few
+ * and needs nothing but the edge list. {@link #minimumSpanningTree(Graph)}
+ * picks between them by density.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class MinimumSpanningTree {
+
+    /**
+     * Utility class, no instances.
+     */
+    private MinimumSpanningTree() {
+    }
+
+    /**
+     * Return the minimum spanning tree of the given graph, by Prim's
+     * algorithm if the graph has at least {@code log2(V)}, rounded down,
+     * edges per vertex and by Kruskal's algorithm otherwise. Where several
+     * trees have the minimum weight, the two algorithms may return different
+     * ones.
+     *
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the MST of the graph; null if the graph is disconnected
+     * @throws IllegalArgumentException if graph is null or directed
+     */
+    public static <T> Set<Edge<T>> minimumSpanningTree(Graph<T> graph) {
+        checkGraph(graph);
+        Set<Edge<T>> edges = graph.getEdgeList();
+        if (edges.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        int n = graph.getAdjacencyList().size();
+        int log = 31 - Integer.numberOfLeadingZeros(n);
+        if ((long) edges.size() >= (long) n * log) {
+            return GraphAlgorithms.prims(edges.iterator().next().getU(),
+                    graph);
+        }
+        return kruskals(graph);
+    }
+
+    /**
+     * Run Kruskal's algorithm on the given graph and return the minimum
+     * spanning tree in the form of a set of Edges. Edges are taken lightest
+     * first, in edge list order among equal weights, and kept when they join
+     * two different components.
+     *
+     * @param graph the Graph we are searching
+     * @param <T>   the data type representing the vertices in the graph.
+     * @return the MST of the graph; null if the graph is disconnected
+     * @throws IllegalArgumentException if graph is null or directed
+     */
+    public static <T> Set<Edge<T>> kruskals(Graph<T> graph) {
+        checkGraph(graph);
+
+        VertexIndex<T> index = new VertexIndex<>(graph);
+        int n = index.size();
+        List<Edge<T>> sorted = new ArrayList<>(graph.getEdgeList());
+        //Edge.compareTo subtracts weights, which overflows for extreme ones
+        Collections.sort(sorted, Comparator.comparingInt(Edge::getWeight));
+
+        DisjointSet components = new DisjointSet(n);
+        Set<Edge<T>> mst = new HashSet<>();
+        for (Edge<T> edge : sorted) {
+            if (components.getSetCount() == 1) {
+                break;
+            }
+            if (components.union(index.indexOf(edge.getU()),
+                    index.indexOf(edge.getV()))) {
+                mst.add(edge);
+            }
+        }
+        return (components.getSetCount() <= 1) ? mst : null;
+    }
+
+    /**
+     * Private helper that validates the graph of an MST search.
+     *
+     * @param graph the graph to check
+     * @param <T>   the data type representing the vertices in the graph.
+     * @throws IllegalArgumentException if graph is null or directed
+     */
+    private static <T> void checkGraph(Graph<T> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Inputs cannot be null");
+        }
+        if (graph.isDirected()) {
+            throw new IllegalArgumentException("Graph must be undirected");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.List;
+
+/**
+ * The result of a point-to-point shortest path search: the path itself,
+ * its length and how many vertices the search settled to find it.
+ *
+ * @param <T> the data type representing the vertices in the graph
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class PathResult<T> {
+
+    private final List<Vertex<T>> path;
+    private final int distance;
+    private final int settledCount;
+
+    /**
+     * Create a result.
+     *
+     * @param path the vertices of the path from start to target, or null if
+     * there is none
+     * @param distance the length of the path, or Integer.MAX_VALUE if there
+     * is none
+     * @param settledCount the number of vertices the search settled
+     */
+    PathResult(List<Vertex<T>> path, int distance, int settledCount) {
+        this.path = path;
+        this.distance = distance;
+        this.settledCount = settledCount;
+    }
+
+    /**
+     * Returns whether a path was found.
+     *
+     * @return true if the target is reachable from the start
+     */
+    public boolean isFound() {
+        return path != null;
+    }
+
+    /**
+     * Returns the vertices of the path, from the start to the target.
+     *
+     * @return the path; null if the target is not reachable
+     */
+    public List<Vertex<T>> getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the total weight of the path.
+     *
+     * @return the length of the path, or Integer.MAX_VALUE if the target is
+     * not reachable
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the number of vertices the search settled, a measure of how
+     * much of the graph it had to explore.
+     *
+     * @return the settled vertex count
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+}
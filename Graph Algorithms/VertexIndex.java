@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A numbering of the vertices of a graph as the ids {@code 0} up to
+ * {@code size() - 1}, so that int-indexed structures such as
+ * {@link CsrGraph} can refer to them.
+ *
+ * @param <T> the data type representing the vertices
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class VertexIndex<T> {
+
+    private final Map<Vertex<T>, Integer> ids;
+    private final List<Vertex<T>> vertices;
+
+    /**
+     * Create an empty index.
+     */
+    public VertexIndex() {
+        ids = new HashMap<>();
+        vertices = new ArrayList<>();
+    }
+
+    /**
+     * Create an index of every vertex of the given graph. Vertices are
+     * numbered in the order they first appear in the edge list, so the
+     * numbering is the same every time for the same graph.
+     *
+     * @param graph the graph whose vertices to number
+     * @throws IllegalArgumentException if graph is null
+     */
+    public VertexIndex(Graph<T> graph) {
+        this();
+        if (graph == null) {
+            throw new IllegalArgumentException("Graph cannot be null");
+        }
+        for (Edge<T> edge : graph.getEdgeList()) {
+            add(edge.getU());
+            add(edge.getV());
+        }
+    }
+
+    /**
+     * Gives a vertex the next id, unless it already has one.
+     *
+     * @param vertex the vertex to add
+     * @return the id of the vertex
+     * @throws IllegalArgumentException if vertex is null
+     */
+    public int add(Vertex<T> vertex) {
+        if (vertex == null) {
+            throw new IllegalArgumentException("Vertex cannot be null");
+        }
+        Integer id = ids.get(vertex);
+        if (id != null) {
+            return id;
+        }
+        ids.put(vertex, vertices.size());
+        vertices.add(vertex);
+        return vertices.size() - 1;
+    }
+
+    /**
+     * Returns the id of a vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the id of the vertex, or -1 if it is not in the index
+     */
+    public int indexOf(Vertex<T> vertex) {
+        Integer id = ids.get(vertex);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Returns the vertex with the given id.
+     *
+     * @param id the id to look up
+     * @return the vertex with that id
+     * @throws IndexOutOfBoundsException if id is not between 0 and
+     * {@code size() - 1}
+     */
+    public Vertex<T> getVertex(int id) {
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the number of vertices in the index.
+     *
+     * @return the number of vertices
+     */
+    public int size() {
+        return vertices.size();
+    }
+}
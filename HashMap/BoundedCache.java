@@ -0,0 +1,841 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A cache with a capped total weight, built on {@link HashMap}. The map
+ * indexes intrusive nodes that are also threaded onto the lists the eviction
+ * policy keeps, so every lookup, add and eviction is O(1).
+ * <p>
+ * Each entry weighs 1 unless a {@link Weigher} is given. Entries may also
+ * carry a time to live, after which they are treated as absent and dropped
+ * the next time they are looked up or {@link #cleanUp()} runs.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * Fraction of the maximum weight given to the admission window under
+     * {@link EvictionPolicy#TINY_LFU}.
+     */
+    private static final double WINDOW_RATIO = 0.01;
+
+    /**
+     * Expiry time of entries that never expire.
+     */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    /**
+     * Longest time to live, in nanoseconds. Keeping it well below the range
+     * of a long means expiry can be compared by subtraction without
+     * overflowing.
+     */
+    private static final long MAX_TTL_NANOS = Long.MAX_VALUE / 4;
+
+    private final HashMap<K, Node<K, V>> index;
+    private final long maxWeight;
+    private final EvictionPolicy policy;
+    private final Weigher<? super K, ? super V> weigher;
+
+    //LRU order for LRU, and the main region for TINY_LFU
+    private final AccessList<K, V> main;
+
+    //Admission window and frequency sketch for TINY_LFU
+    private final AccessList<K, V> window;
+    private final long maxWindowWeight;
+    private final FrequencySketch sketch;
+
+    //Frequency buckets for LFU, lowest first, around a sentinel
+    private final FrequencyBucket<K, V> buckets;
+
+    private long totalWeight;
+    private long windowWeight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * Create an LRU cache where every entry weighs 1, so at most
+     * {@code maxWeight} entries are kept.
+     *
+     * @param maxWeight the maximum number of entries
+     * @throws IllegalArgumentException if maxWeight is not positive
+     */
+    public BoundedCache(long maxWeight) {
+        this(maxWeight, EvictionPolicy.LRU);
+    }
+
+    /**
+     * Create a cache with the given eviction policy where every entry
+     * weighs 1, so at most {@code maxWeight} entries are kept.
+     *
+     * @param maxWeight the maximum number of entries
+     * @param policy how entries are chosen for eviction
+     * @throws IllegalArgumentException if maxWeight is not positive or
+     * policy is null
+     */
+    public BoundedCache(long maxWeight, EvictionPolicy policy) {
+        this(maxWeight, policy, null);
+    }
+
+    /**
+     * Create a cache with the given eviction policy whose entries are
+     * weighed by {@code weigher}. Entries are evicted while their total
+     * weight is above {@code maxWeight}.
+     *
+     * @param maxWeight the maximum total weight of the entries
+     * @param policy how entries are chosen for eviction
+     * @param weigher computes the weight of each entry, or null to weigh
+     * every entry as 1
+     * @throws IllegalArgumentException if maxWeight is not positive or
+     * policy is null
+     */
+    public BoundedCache(long maxWeight, EvictionPolicy policy,
+                        Weigher<? super K, ? super V> weigher) {
+        if ((maxWeight <= 0) || (policy == null)) {
+            throw new IllegalArgumentException("Maximum weight must be "
+                    + "positive and policy cannot be null.");
+        }
+        this.maxWeight = maxWeight;
+        this.policy = policy;
+        this.weigher = weigher;
+        index = new HashMap<>(HashMapInterface.STARTING_SIZE,
+                HashMap.ProbingStrategy.LINEAR,
+                HashMap.CapacityPolicy.POWER_OF_TWO);
+        main = new AccessList<>();
+        window = new AccessList<>();
+        buckets = new FrequencyBucket<>(0);
+        maxWindowWeight = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        sketch = (policy == EvictionPolicy.TINY_LFU)
+                ? new FrequencySketch(maxWeight) : null;
+    }
+
+    /**
+     * Adds the given key-value pair to the cache with no expiry, replacing
+     * the value if the key is already cached. Entries are then evicted
+     * until the cache is within its maximum weight, which may include the
+     * entry just added.
+     *
+     * @param key key to add into the cache
+     * @param value value to add into the cache
+     * @throws IllegalArgumentException if key or value is null, or the
+     * weigher returns a negative weight
+     * @return the value previously cached for the key, or null if there was
+     * none
+     */
+    public V add(K key, V value) {
+        return put(key, value, NEVER);
+    }
+
+    /**
+     * Adds the given key-value pair to the cache, to expire once
+     * {@code ttlMillis} milliseconds have passed. Otherwise behaves like
+     * {@link #add(Object, Object)}.
+     *
+     * @param key key to add into the cache
+     * @param value value to add into the cache
+     * @param ttlMillis how long the entry stays live, in milliseconds
+     * @throws IllegalArgumentException if key or value is null, ttlMillis is
+     * not positive, or the weigher returns a negative weight
+     * @return the value previously cached for the key, or null if there was
+     * none
+     */
+    public V add(K key, V value, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Time to live must be "
+                    + "positive.");
+        }
+        long ttlNanos = (ttlMillis > MAX_TTL_NANOS / 1_000_000)
+                ? MAX_TTL_NANOS : ttlMillis * 1_000_000;
+        return put(key, value, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * Gets the value cached for the given key and records the access with
+     * the eviction policy. Counts as a hit or a miss.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @throws NoSuchElementException if the key is not cached or has expired
+     * @return the value cached for the key
+     */
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Node<K, V> node = lookup(key);
+        if (node == null) {
+            missCount++;
+            throw new NoSuchElementException("The cache does not contain "
+                    + "that key.");
+        }
+        hitCount++;
+        touch(node);
+        return node.value;
+    }
+
+    /**
+     * Returns whether the key is cached and not expired. This neither
+     * records an access nor counts as a hit or a miss.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return whether the key is cached
+     */
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        return lookup(key) != null;
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key the key to remove
+     * @throws IllegalArgumentException if key is null
+     * @throws NoSuchElementException if the key is not cached or has expired
+     * @return the value that was cached for the key
+     */
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        Node<K, V> node = lookup(key);
+        if (node == null) {
+            throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this cache");
+        }
+        discard(node);
+        return node.value;
+    }
+
+    /**
+     * Drops every expired entry now instead of waiting for it to be looked
+     * up. This walks every entry, so it is O(n).
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        expireIn(main, now);
+        expireIn(window, now);
+        FrequencyBucket<K, V> bucket = buckets.nextBucket;
+        while (bucket != buckets) {
+            //Expiring the last entry of a bucket unlinks the bucket
+            FrequencyBucket<K, V> next = bucket.nextBucket;
+            expireIn(bucket, now);
+            bucket = next;
+        }
+    }
+
+    /**
+     * Removes every entry. The counters are kept.
+     */
+    public void clear() {
+        index.clear();
+        main.clear();
+        window.clear();
+        buckets.nextBucket = buckets;
+        buckets.prevBucket = buckets;
+        totalWeight = 0;
+        windowWeight = 0;
+    }
+
+    /**
+     * Returns the number of entries in the cache, including expired ones
+     * that have not been dropped yet.
+     *
+     * @return number of entries in the cache
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the total weight of the entries in the cache.
+     *
+     * @return the total weight
+     */
+    public long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Returns the maximum total weight of the cache.
+     *
+     * @return the maximum weight
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found a live entry.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found no live entry.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the fraction of calls to {@link #get} that were hits.
+     *
+     * @return the hit rate, or 0 if get was never called
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return (requests == 0) ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the maximum
+     * weight, including new entries that were not admitted.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries dropped because they expired.
+     *
+     * @return the expiration count
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Private helper that adds or replaces an entry and then evicts down to
+     * the maximum weight.
+     *
+     * @param key key to add, checked for null here
+     * @param value value to add, checked for null here
+     * @param expiresAt the {@link System#nanoTime} at which the entry
+     * expires, or {@code NEVER}
+     * @return the live value previously cached for the key, or null
+     */
+    private V put(K key, V value, long expiresAt) {
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Null value cannot be added.");
+        }
+        long weight = (weigher == null) ? 1 : weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative.");
+        }
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+
+        V out = null;
+        Node<K, V> node = lookup(key);
+        if (node != null) {
+            out = node.value;
+            node.value = value;
+            node.expiresAt = expiresAt;
+            totalWeight += weight - node.weight;
+            if (node.inWindow) {
+                windowWeight += weight - node.weight;
+            }
+            node.weight = weight;
+            touch(node);
+        } else {
+            node = new Node<>(key, value, weight, expiresAt);
+            index.add(key, node);
+            totalWeight += weight;
+            link(node);
+        }
+        evictIfNeeded();
+        return out;
+    }
+
+    /**
+     * Private helper to find the live node for a key, dropping it first if
+     * it has expired.
+     *
+     * @param key the key to search for
+     * @return the node, or null if the key is not cached or has expired
+     */
+    private Node<K, V> lookup(K key) {
+        Node<K, V> node = index.getOrDefault(key, null);
+        if (node == null) {
+            return null;
+        }
+        if (isExpired(node, System.nanoTime())) {
+            discard(node);
+            expirationCount++;
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Private helper to check whether a node has expired. The times are
+     * compared by subtraction, since {@link System#nanoTime} may wrap.
+     *
+     * @param node the node to check
+     * @param now the current {@link System#nanoTime}
+     * @return true if the node's time to live has passed
+     */
+    private static boolean isExpired(Node<?, ?> node, long now) {
+        return (node.expiresAt != NEVER) && (now - node.expiresAt >= 0);
+    }
+
+    /**
+     * Private helper that threads a new node onto the policy's lists.
+     *
+     * @param node the node to link
+     */
+    private void link(Node<K, V> node) {
+        switch (policy) {
+        case LFU:
+            FrequencyBucket<K, V> first = buckets.nextBucket;
+            if (first.frequency != 1) {
+                first = buckets.insertAfter(1);
+            }
+            first.addLast(node);
+            node.bucket = first;
+            break;
+        case TINY_LFU:
+            window.addLast(node);
+            node.inWindow = true;
+            windowWeight += node.weight;
+            break;
+        default:
+            main.addLast(node);
+            break;
+        }
+    }
+
+    /**
+     * Private helper that records an access to a node with the policy.
+     *
+     * @param node the node that was accessed
+     */
+    private void touch(Node<K, V> node) {
+        AccessList.unlink(node);
+        switch (policy) {
+        case LFU:
+            FrequencyBucket<K, V> bucket = node.bucket;
+            FrequencyBucket<K, V> next = bucket.nextBucket;
+            if (next.frequency != bucket.frequency + 1) {
+                next = bucket.insertAfter(bucket.frequency + 1);
+            }
+            next.addLast(node);
+            node.bucket = next;
+            if (bucket.isEmpty()) {
+                bucket.removeBucket();
+            }
+            break;
+        case TINY_LFU:
+            (node.inWindow ? window : main).addLast(node);
+            break;
+        default:
+            main.addLast(node);
+            break;
+        }
+    }
+
+    /**
+     * Private helper that removes a node from the index and the policy's
+     * lists.
+     *
+     * @param node the node to remove
+     */
+    private void discard(Node<K, V> node) {
+        AccessList.unlink(node);
+        if ((node.bucket != null) && node.bucket.isEmpty()) {
+            node.bucket.removeBucket();
+        }
+        if (node.inWindow) {
+            windowWeight -= node.weight;
+        }
+        totalWeight -= node.weight;
+        index.remove(node.key);
+    }
+
+    /**
+     * Private helper that evicts a node to make room.
+     *
+     * @param node the node to evict
+     */
+    private void evict(Node<K, V> node) {
+        discard(node);
+        evictionCount++;
+    }
+
+    /**
+     * Private helper that evicts entries until the cache is within its
+     * maximum weight.
+     */
+    private void evictIfNeeded() {
+        if (policy == EvictionPolicy.TINY_LFU) {
+            admitFromWindow();
+        }
+        while (totalWeight > maxWeight) {
+            Node<K, V> victim;
+            if (policy == EvictionPolicy.LFU) {
+                victim = buckets.nextBucket.first();
+            } else {
+                victim = main.isEmpty() ? window.first() : main.first();
+            }
+            evict(victim);
+        }
+    }
+
+    /**
+     * Private helper for {@link EvictionPolicy#TINY_LFU} that moves entries
+     * out of an overfull window. Each one moved is a candidate for the main
+     * region: if that leaves the cache too heavy, the candidate is compared
+     * with the least recently used main entry and the one the sketch has
+     * seen less often is evicted.
+     */
+    private void admitFromWindow() {
+        while (windowWeight > maxWindowWeight) {
+            Node<K, V> candidate = window.first();
+            AccessList.unlink(candidate);
+            candidate.inWindow = false;
+            windowWeight -= candidate.weight;
+            main.addLast(candidate);
+
+            boolean admitted = true;
+            while (admitted && (totalWeight > maxWeight)) {
+                Node<K, V> victim = main.first();
+                //Ties go to the resident, so one-hit wonders can't churn main
+                if ((victim == candidate) || (sketch.frequency(candidate.key)
+                        <= sketch.frequency(victim.key))) {
+                    evict(candidate);
+                    admitted = false;
+                } else {
+                    evict(victim);
+                }
+            }
+        }
+    }
+
+    /**
+     * Private helper for {@link #cleanUp()} that drops the expired nodes of
+     * one list.
+     *
+     * @param list the list to sweep
+     * @param now the current {@link System#nanoTime}
+     */
+    private void expireIn(AccessList<K, V> list, long now) {
+        Node<K, V> node = list.first();
+        while (node != null) {
+            Node<K, V> next = list.after(node);
+            if (isExpired(node, now)) {
+                discard(node);
+                expirationCount++;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Policies for choosing which entry to evict.
+     */
+    public static enum EvictionPolicy {
+        /**
+         * Evict the least recently used entry.
+         */
+        LRU,
+
+        /**
+         * Evict the least frequently used entry, breaking ties by least
+         * recent use. Entries are kept in buckets of equal access count, so
+         * an access moves an entry to the next bucket in O(1).
+         */
+        LFU,
+
+        /**
+         * Window TinyLFU. New entries enter a small LRU window. Entries that
+         * fall out of the window are admitted to the main LRU region only if
+         * a count-min sketch of recent accesses says they are used more often
+         * than the main entry they would replace. The sketch is halved
+         * periodically so old popularity fades.
+         */
+        TINY_LFU
+    }
+
+    /**
+     * Computes the weight of a cache entry.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public interface Weigher<K, V> {
+        /**
+         * Returns the weight of an entry.
+         *
+         * @param key the key of the entry
+         * @param value the value of the entry
+         * @return the weight of the entry, not negative
+         */
+        long weigh(K key, V value);
+    }
+
+    /**
+     * A cached entry, linked into one of the policy's lists.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private long weight;
+        private long expiresAt;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private FrequencyBucket<K, V> bucket;
+        private boolean inWindow;
+
+        /**
+         * Create an unlinked node.
+         *
+         * @param key the key
+         * @param value the value
+         * @param weight the weight of the entry
+         * @param expiresAt when the entry expires
+         */
+        private Node(K key, V value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * A circular doubly linked list of nodes around a sentinel, ordered from
+     * least to most recently used.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static class AccessList<K, V> {
+        private final Node<K, V> sentinel = new Node<>(null, null, 0, 0);
+
+        /**
+         * Create an empty list.
+         */
+        private AccessList() {
+            clear();
+        }
+
+        /**
+         * Appends a node as the most recently used.
+         *
+         * @param node an unlinked node
+         */
+        void addLast(Node<K, V> node) {
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+        }
+
+        /**
+         * Returns the least recently used node.
+         *
+         * @return the first node, or null if the list is empty
+         */
+        Node<K, V> first() {
+            return isEmpty() ? null : sentinel.next;
+        }
+
+        /**
+         * Returns the node after the given one.
+         *
+         * @param node a node of this list
+         * @return the next node, or null at the end of the list
+         */
+        Node<K, V> after(Node<K, V> node) {
+            return (node.next == sentinel) ? null : node.next;
+        }
+
+        /**
+         * Returns whether the list has no nodes.
+         *
+         * @return true if the list is empty
+         */
+        boolean isEmpty() {
+            return sentinel.next == sentinel;
+        }
+
+        /**
+         * Empties the list without touching its nodes.
+         */
+        void clear() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        /**
+         * Removes a node from whichever list it is in. Does nothing if the
+         * node is not linked.
+         *
+         * @param node the node to unlink
+         * @param <K> the type of the key
+         * @param <V> the type of the value
+         */
+        static <K, V> void unlink(Node<K, V> node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+                node.next.prev = node.prev;
+                node.prev = null;
+                node.next = null;
+            }
+        }
+    }
+
+    /**
+     * The nodes that have been accessed the same number of times, linked
+     * into a circular list of buckets in increasing frequency.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class FrequencyBucket<K, V>
+            extends AccessList<K, V> {
+        private final long frequency;
+        private FrequencyBucket<K, V> prevBucket = this;
+        private FrequencyBucket<K, V> nextBucket = this;
+
+        /**
+         * Create an unlinked bucket.
+         *
+         * @param frequency the access count of the bucket's nodes
+         */
+        private FrequencyBucket(long frequency) {
+            this.frequency = frequency;
+        }
+
+        /**
+         * Creates a bucket and links it right after this one.
+         *
+         * @param frequency the access count of the new bucket
+         * @return the new bucket
+         */
+        private FrequencyBucket<K, V> insertAfter(long frequency) {
+            FrequencyBucket<K, V> bucket = new FrequencyBucket<>(frequency);
+            bucket.prevBucket = this;
+            bucket.nextBucket = nextBucket;
+            nextBucket.prevBucket = bucket;
+            nextBucket = bucket;
+            return bucket;
+        }
+
+        /**
+         * Unlinks this bucket from the bucket list.
+         */
+        private void removeBucket() {
+            prevBucket.nextBucket = nextBucket;
+            nextBucket.prevBucket = prevBucket;
+        }
+    }
+
+    /**
+     * A count-min sketch of how often keys were accessed recently, with
+     * counters that saturate at 15. Once the number of increments reaches
+     * ten times the width, every counter is halved.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb8ee5bcb,
+            0x6a4ee23d, 0xd2b7f8c5};
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        /**
+         * Create a sketch sized for about {@code expected} distinct keys.
+         *
+         * @param expected the number of keys the cache may hold
+         */
+        private FrequencySketch(long expected) {
+            int width = Hashing.nextPowerOfTwo(
+                    (int) Math.max(16, Math.min(expected, 1 << 24)));
+            rows = new byte[DEPTH][width];
+            mask = width - 1;
+            sampleSize = 10 * width;
+        }
+
+        /**
+         * Records one access to a key.
+         *
+         * @param key the key that was accessed
+         */
+        private void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int slot = slot(hash, i);
+                if (rows[i][slot] < MAX_COUNT) {
+                    rows[i][slot]++;
+                    added = true;
+                }
+            }
+            if (added && (++additions == sampleSize)) {
+                reset();
+            }
+        }
+
+        /**
+         * Returns the estimated number of recent accesses to a key.
+         *
+         * @param key the key to estimate
+         * @return the estimate, never less than the true count since the
+         * last halving
+         */
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, rows[i][slot(hash, i)]);
+            }
+            return min;
+        }
+
+        /**
+         * Private helper that picks the counter of a hash in one row.
+         *
+         * @param hash the key's hash code
+         * @param row the row of the sketch
+         * @return the counter's index in the row
+         */
+        private int slot(int hash, int row) {
+            return Hashing.mix(hash * SEEDS[row] + row) & mask;
+        }
+
+        /**
+         * Private helper that halves every counter so old accesses fade.
+         */
+        private void reset() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
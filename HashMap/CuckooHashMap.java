@@ -0,0 +1,504 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A HashMap that uses bucketized cuckoo hashing, so a lookup reads a fixed
+ * number of slots no matter how full the table is or how keys cluster.
+ * <p>
+ * Every key has two candidate buckets of {@code BUCKET_SIZE} slots each,
+ * chosen by two seeded hash functions. A lookup checks those two buckets
+ * and then the small stash, {@code 2 * BUCKET_SIZE + STASH_SIZE} slots in
+ * all. An insert into two full buckets evicts a random resident to that
+ * resident's other bucket and repeats. If no free slot turns up within
+ * {@code MAX_KICKS} evictions, the homeless entry goes to the stash. When
+ * the stash is full too, the table is rebuilt with fresh seeds, and it
+ * doubles if reseeding keeps failing.
+ * <p>
+ * Keys that share a whole hash code share both buckets whatever the seeds
+ * or size, so no rebuild can separate more than {@code 2 * BUCKET_SIZE} of
+ * them. Once the homeless entry's two buckets hold that many keys with its
+ * hash, only the stash grows, and lookups then also scan the extra stash
+ * slots.
+ * <p>
+ * Four-way buckets stay insertable well past the usual load factor, so
+ * this map only regrows above {@code CUCKOO_LOAD_FACTOR}. Removed slots are
+ * cleared outright, since lookups never depend on a probe run.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class CuckooHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * Slots per bucket.
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * Slots in the stash for entries no bucket could take.
+     */
+    private static final int STASH_SIZE = 4;
+
+    /**
+     * Evictions tried by one insert before it gives up on the buckets.
+     */
+    private static final int MAX_KICKS = 256;
+
+    /**
+     * Failed reseeds at one size before the table doubles.
+     */
+    private static final int MAX_REHASHES = 8;
+
+    /**
+     * Load factor above which the table doubles before an add.
+     */
+    private static final double CUCKOO_LOAD_FACTOR = 0.9;
+
+    private MapEntry<K, V>[] table;
+    private MapEntry<K, V>[] stash;
+    private int stashCount;
+    private int bucketMask;
+    private int size;
+    private int seed;
+    private int random;
+
+    /**
+     * Create a map with no entries and room for at least
+     * {@code STARTING_SIZE} entries.
+     */
+    public CuckooHashMap() {
+        this(STARTING_SIZE);
+    }
+
+    /**
+     * Create a map with no entries and room for at least
+     * {@code initialCapacity} entries, rounded up to a whole power of two
+     * number of buckets.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public CuckooHashMap(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be "
+                    + "positive.");
+        }
+        random = 0x2545f491;
+        seed = nextRandom();
+        stash = new MapEntry[STASH_SIZE];
+        allocate(bucketsFor(initialCapacity));
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Null value cannot be added.");
+        }
+
+        if ((double) (size + 1) / table.length > CUCKOO_LOAD_FACTOR) {
+            rebuild((bucketMask + 1) * 2, null);
+        }
+
+        int slot = find(key);
+        if (slot >= 0) {
+            V out = table[slot].getValue();
+            table[slot].setValue(value);
+            return out;
+        }
+        int stashed = findInStash(key);
+        if (stashed >= 0) {
+            V out = stash[stashed].getValue();
+            stash[stashed].setValue(value);
+            return out;
+        }
+
+        MapEntry<K, V> homeless = insert(new MapEntry<>(key, value));
+        if ((homeless != null) && !putInStash(homeless)
+                && !growStash(homeless)) {
+            rebuild(bucketMask + 1, homeless);
+        }
+        size++;
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+
+        int slot = find(key);
+        if (slot >= 0) {
+            V out = table[slot].getValue();
+            table[slot] = null;
+            size--;
+            return out;
+        }
+
+        int stashed = findInStash(key);
+        if (stashed < 0) {
+            throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this hashmap");
+        }
+        V out = stash[stashed].getValue();
+        stashCount--;
+        stash[stashed] = stash[stashCount];
+        stash[stashCount] = null;
+        size--;
+        return out;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+
+        int slot = find(key);
+        if (slot >= 0) {
+            return table[slot].getValue();
+        }
+        int stashed = findInStash(key);
+        if (stashed < 0) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return stash[stashed].getValue();
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        return (find(key) >= 0) || (findInStash(key) >= 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        stash = new MapEntry[STASH_SIZE];
+        stashCount = 0;
+        size = 0;
+        allocate(bucketsFor(STARTING_SIZE));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                keys.add(entry.getKey());
+            }
+        }
+        for (int i = 0; i < stashCount; i++) {
+            keys.add(stash[i].getKey());
+        }
+        return keys;
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                values.add(entry.getValue());
+            }
+        }
+        for (int i = 0; i < stashCount; i++) {
+            values.add(stash[i].getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Resize the table to hold at least {@code length} slots, rounded up to
+     * a whole power of two number of buckets, and rehash every entry.
+     *
+     * @param length new minimum length of the backing table
+     * @throws IllegalArgumentException if length is non-positive or less
+     * than the number of items in the hash map.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        if ((length <= 0) || (length < size)) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        rebuild(bucketsFor(length), null);
+    }
+
+    /**
+     * Returns the backing table. Bucket {@code b} occupies slots
+     * {@code b * BUCKET_SIZE} up to {@code (b + 1) * BUCKET_SIZE}. Entries in
+     * the stash are not included.
+     *
+     * @return the backing array of the data structure, not a copy
+     */
+    @Override
+    public MapEntry<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * Private helper to search the two candidate buckets of a key.
+     *
+     * @param key the key to search for
+     * @return slot of the key in the table, or -1 if it is not there
+     */
+    private int find(K key) {
+        int h = key.hashCode();
+        int slot = findInBucket(key, firstBucket(h));
+        return (slot >= 0) ? slot : findInBucket(key, secondBucket(h));
+    }
+
+    /**
+     * Private helper to search one bucket for a key.
+     *
+     * @param key the key to search for
+     * @param bucket the bucket to search
+     * @return slot of the key in the table, or -1 if it is not there
+     */
+    private int findInBucket(K key, int bucket) {
+        int start = bucket * BUCKET_SIZE;
+        for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+            if ((table[slot] != null) && table[slot].getKey().equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Private helper to search the stash for a key.
+     *
+     * @param key the key to search for
+     * @return index of the key in the stash, or -1 if it is not there
+     */
+    private int findInStash(K key) {
+        for (int i = 0; i < stashCount; i++) {
+            if (stash[i].getKey().equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Private helper that places an entry whose key is not in the table,
+     * evicting residents to their other bucket as needed.
+     *
+     * @param entry the entry to place
+     * @return null if every entry found a slot, otherwise the entry left
+     * without one after {@code MAX_KICKS} evictions
+     */
+    private MapEntry<K, V> insert(MapEntry<K, V> entry) {
+        for (int kick = 0; kick <= MAX_KICKS; kick++) {
+            int h = entry.getKey().hashCode();
+            int first = firstBucket(h);
+            int second = secondBucket(h);
+            if (placeInBucket(entry, first) || placeInBucket(entry, second)) {
+                return null;
+            }
+
+            //Both buckets are full, evict a random resident of either one
+            int pick = nextRandom() & (2 * BUCKET_SIZE - 1);
+            int bucket = (pick < BUCKET_SIZE) ? first : second;
+            int slot = bucket * BUCKET_SIZE + (pick & (BUCKET_SIZE - 1));
+            MapEntry<K, V> evicted = table[slot];
+            table[slot] = entry;
+            entry = evicted;
+        }
+        return entry;
+    }
+
+    /**
+     * Private helper to put an entry in the first free slot of a bucket.
+     *
+     * @param entry the entry to place
+     * @param bucket the bucket to place it in
+     * @return true if the bucket had a free slot
+     */
+    private boolean placeInBucket(MapEntry<K, V> entry, int bucket) {
+        int start = bucket * BUCKET_SIZE;
+        for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+            if (table[slot] == null) {
+                table[slot] = entry;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Private helper to put an entry in the stash.
+     *
+     * @param entry the entry to stash
+     * @return true if the stash had room
+     */
+    private boolean putInStash(MapEntry<K, V> entry) {
+        if (stashCount == stash.length) {
+            return false;
+        }
+        stash[stashCount] = entry;
+        stashCount++;
+        return true;
+    }
+
+    /**
+     * Private helper that stashes an entry in a larger stash when a rebuild
+     * could not help it: its two buckets are full of keys with the same
+     * whole hash code, which land in the same two buckets under any seed
+     * and table size.
+     *
+     * @param entry the entry that found no slot
+     * @return true if the stash grew and took the entry, false if a rebuild
+     * may still place it
+     */
+    private boolean growStash(MapEntry<K, V> entry) {
+        int h = entry.getKey().hashCode();
+        int shared = 0;
+        for (int bucket : new int[] {firstBucket(h), secondBucket(h)}) {
+            int start = bucket * BUCKET_SIZE;
+            for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+                if ((table[slot] != null)
+                        && (table[slot].getKey().hashCode() == h)) {
+                    shared++;
+                }
+            }
+            if (firstBucket(h) == secondBucket(h)) {
+                break;
+            }
+        }
+        if (shared < 2 * BUCKET_SIZE) {
+            return false;
+        }
+
+        stash = Arrays.copyOf(stash, stash.length * 2);
+        return putInStash(entry);
+    }
+
+    /**
+     * Private helper that rehashes every entry, plus an optional pending
+     * one, into a table of at least {@code buckets} buckets. Each failed
+     * attempt picks new seeds. After {@code MAX_REHASHES} failures the
+     * table doubles. Entries that share a whole hash code with a full pair
+     * of buckets go straight to a larger stash instead, since no seed or
+     * size can place them.
+     *
+     * @param buckets the number of buckets to start with, a power of two
+     * @param pending an entry not yet in the map, or null
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuild(int buckets, MapEntry<K, V> pending) {
+        List<MapEntry<K, V>> entries = new ArrayList<>(size + 1);
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        for (int i = 0; i < stashCount; i++) {
+            entries.add(stash[i]);
+        }
+        if (pending != null) {
+            entries.add(pending);
+        }
+
+        int stashLength = stash.length;
+        int attempts = 0;
+        boolean placed = false;
+        while (!placed) {
+            seed = nextRandom();
+            allocate(buckets);
+            stash = new MapEntry[stashLength];
+            stashCount = 0;
+
+            placed = true;
+            for (int i = 0; placed && (i < entries.size()); i++) {
+                MapEntry<K, V> homeless = insert(entries.get(i));
+                placed = (homeless == null) || putInStash(homeless)
+                        || growStash(homeless);
+            }
+
+            if (!placed) {
+                attempts++;
+                if (attempts % MAX_REHASHES == 0) {
+                    if (buckets < Hashing.MAX_POWER_OF_TWO / BUCKET_SIZE) {
+                        buckets *= 2;
+                    }
+                    if (attempts >= 2 * MAX_REHASHES) {
+                        stashLength *= 2;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Private helper to compute a key's first candidate bucket.
+     *
+     * @param h the key's hash code
+     * @return the first bucket
+     */
+    private int firstBucket(int h) {
+        return Hashing.mix(h ^ seed) & bucketMask;
+    }
+
+    /**
+     * Private helper to compute a key's second candidate bucket, using a
+     * differently seeded hash than {@link #firstBucket}.
+     *
+     * @param h the key's hash code
+     * @return the second bucket
+     */
+    private int secondBucket(int h) {
+        return Hashing.mix(h ^ Integer.rotateLeft(seed, 16) ^ 0x9e3779b9)
+                & bucketMask;
+    }
+
+    /**
+     * Private helper to draw the next value of an xorshift generator.
+     *
+     * @return a pseudo-random int
+     */
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        return random;
+    }
+
+    /**
+     * Private helper to allocate an empty table.
+     *
+     * @param buckets the number of buckets, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int buckets) {
+        table = new MapEntry[buckets * BUCKET_SIZE];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Private helper to turn a slot count into a bucket count.
+     *
+     * @param length the requested number of slots
+     * @return the power-of-two number of buckets that holds them
+     */
+    private static int bucketsFor(int length) {
+        return Hashing.nextPowerOfTwo(Math.max(2,
+                (length + BUCKET_SIZE - 1) / BUCKET_SIZE));
+    }
+}
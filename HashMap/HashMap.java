@@ -1,7 +1,11 @@
-import java.util.HashSet;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * Your implementation of HashMap.
@@ -11,9 +15,41 @@ import java.util.List;
  */
 public class HashMap<K, V> implements HashMapInterface<K, V> {
 
-    // Do not make any new instance variables.
+    /**
+     * Fraction of the backing array that may hold removed entries before the
+     * table is compacted in place.
+     */
+    private static final double MAX_REMOVED_RATIO = 0.25;
+
+    /**
+     * Number of old-table slots moved into the new table by each add or
+     * remove while an incremental resize is in progress.
+     */
+    private static final int MIGRATION_STEP = 8;
+
+    /**
+     * Number of keys whose home slots {@link #getAll} reads together before
+     * comparing any of them.
+     */
+    private static final int BATCH_GROUP = 16;
+
     private MapEntry<K, V>[] table;
     private int size;
+    private int removedCount;
+    private final ProbingStrategy strategy;
+    private final CapacityPolicy capacityPolicy;
+    private boolean incrementalResize;
+    private MapEntry<K, V>[] oldTable;
+    private int migrateIndex;
+    private int modCount;
+    private int lastProbes;
+    private long[] addProbes;
+    private long[] getProbes;
+    private long[] removeProbes;
+    private long resizeCount;
+    private long totalResizeNanos;
+    private long maxResizeNanos;
+    private long compactionCount;
 
     /**
      * Create a hash map with no entries. The backing array has an initial
@@ -33,94 +69,242 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
      *
      * @param initialCapacity initial capacity of the backing array
      */
-    @SuppressWarnings("unchecked")
     public HashMap(int initialCapacity) {
-        table = new MapEntry[initialCapacity];
+        this(initialCapacity, ProbingStrategy.LINEAR);
+    }
+
+    /**
+     * Create a hash map with no entries that resolves collisions with the
+     * given probing strategy. The backing array has an initial capacity of
+     * {@code initialCapacity}.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param strategy the collision resolution strategy to use
+     * @throws IllegalArgumentException if strategy is null
+     */
+    public HashMap(int initialCapacity, ProbingStrategy strategy) {
+        this(initialCapacity, strategy, CapacityPolicy.ODD_GROWTH);
+    }
+
+    /**
+     * Create a hash map with no entries that resolves collisions with the
+     * given probing strategy and sizes its backing array with the given
+     * capacity policy. The backing array has an initial capacity of
+     * {@code initialCapacity}, rounded up to a power of two under
+     * {@link CapacityPolicy#POWER_OF_TWO}.
+     *
+     * @param initialCapacity initial capacity of the backing array
+     * @param strategy the collision resolution strategy to use
+     * @param capacityPolicy how the backing array is sized and indexed
+     * @throws IllegalArgumentException if strategy or capacityPolicy is null
+     */
+    @SuppressWarnings("unchecked")
+    public HashMap(int initialCapacity, ProbingStrategy strategy,
+                   CapacityPolicy capacityPolicy) {
+        if ((strategy == null) || (capacityPolicy == null)) {
+            throw new IllegalArgumentException("Probing strategy and capacity "
+                    + "policy cannot be null.");
+        }
+        this.strategy = strategy;
+        this.capacityPolicy = capacityPolicy;
+        table = new MapEntry[tableLength(initialCapacity)];
         size = 0;
+        removedCount = 0;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public V add(K key, V value) {
         //Null Check
         if ((key == null) || (value == null)) {
             throw new IllegalArgumentException("Null value cannot be added.");
         }
+        return put(key, value, hash(key));
+    }
 
-        //Create entry to be added to table
-        MapEntry<K, V> entry = new MapEntry(key, value);
-
+    /**
+     * Adds every key-value pair of the two arrays, pairing them by index.
+     * <p>
+     * The backing table is grown at most once, up front, to fit the whole
+     * batch, and every hash code is computed before the first insert.
+     * Later pairs win if a key appears more than once.
+     *
+     * @param keys keys to add into the HashMap
+     * @param values values to add into the HashMap
+     * @throws IllegalArgumentException if either array or any element is
+     * null, or if the arrays have different lengths. Nothing is added in
+     * that case.
+     */
+    public void addAll(K[] keys, V[] values) {
+        if ((keys == null) || (values == null)
+                || (keys.length != values.length)) {
+            throw new IllegalArgumentException("Keys and values must be "
+                    + "non-null arrays of the same length.");
+        }
 
-        //Check if load factor is exceeded and resize if needed
-        double loadFac = (double) (size + 1) / (double) table.length;
-        if (loadFac > MAX_LOAD_FACTOR) {
-            resizeBackingTable(table.length * 2 + 1);
+        int[] hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if ((keys[i] == null) || (values[i] == null)) {
+                throw new IllegalArgumentException("Null value cannot be "
+                        + "added.");
+            }
+            hashes[i] = hash(keys[i]);
         }
 
+        //Size for the worst case where every key is new, so no add in the
+        //loop below has to regrow
+        long needed = (long) size + removedCount + keys.length;
+        if ((double) needed / table.length > MAX_LOAD_FACTOR) {
+            resizeBackingTable((int) Math.min(Integer.MAX_VALUE,
+                    (long) Math.ceil(needed / MAX_LOAD_FACTOR) + 1));
+        }
 
-        //Generate hashcode to use as starting index to add entry
-        int hashIndex = Math.abs(entry.getKey().hashCode()) % table.length;
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i], hashes[i]);
+        }
+    }
 
-        //If starting index is empty, store entry there
-        if (table[hashIndex] == null) {
-            table[hashIndex] = entry;
+    /**
+     * Looks up every key of {@code keys} and writes its value to the same
+     * index of {@code out}, or null if the key is not in the map.
+     * <p>
+     * All hash codes are computed first. The keys are then resolved in
+     * groups of {@code BATCH_GROUP}. A first pass over a group reads every
+     * home slot, and the entry and key it holds, with no branch depending
+     * on an earlier key, so the loads of a whole group can be in flight at
+     * once. The second pass compares the keys, which by then are usually
+     * in cache. Keys whose home slot holds another key fall back to a
+     * normal probe.
+     *
+     * @param keys keys to search for
+     * @param out array to receive the values, at least as long as keys
+     * @throws IllegalArgumentException if either array or any key is null,
+     * or if out is shorter than keys
+     */
+    public void getAll(K[] keys, V[] out) {
+        if ((keys == null) || (out == null) || (out.length < keys.length)) {
+            throw new IllegalArgumentException("Keys and output must be "
+                    + "non-null and the output at least as long.");
+        }
 
-            size++;
-            return null;
+        int[] hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Key cannot be null.");
+            }
+            hashes[i] = hash(keys[i]);
+        }
 
+        @SuppressWarnings("unchecked")
+        MapEntry<K, V>[] homes = new MapEntry[BATCH_GROUP];
+        Object[] homeKeys = new Object[BATCH_GROUP];
+        for (int base = 0; base < keys.length; base += BATCH_GROUP) {
+            int end = Math.min(base + BATCH_GROUP, keys.length);
 
-        } else {
-            //Otherwise, look for closest empty spot
+            for (int i = base; i < end; i++) {
+                MapEntry<K, V> home = table[homeSlot(hashes[i], table.length)];
+                homes[i - base] = home;
+                homeKeys[i - base] = (home == null) ? null : home.getKey();
+            }
 
-            int i = 0;
+            for (int i = base; i < end; i++) {
+                MapEntry<K, V> home = homes[i - base];
+                Object homeKey = homeKeys[i - base];
+                if ((homeKey != null) && !home.isRemoved()
+                        && ((homeKey == keys[i]) || homeKey.equals(keys[i]))) {
+                    out[i] = home.getValue();
+                    recordProbes(getProbes, 1);
+                } else {
+                    MapEntry<K, V> found = find(keys[i], hashes[i]);
+                    out[i] = (found == null) ? null : found.getValue();
+                    recordProbes(getProbes, lastProbes);
+                }
+            }
+        }
+    }
 
-            boolean isRemoved = false;
+    /**
+     * Private helper that adds a pair whose key's hash is already known.
+     *
+     * @param key key to add, not null
+     * @param value value to add, not null
+     * @param hash the key's hash from {@link #hash}
+     * @return null if the key was not already in the map, otherwise the old
+     * value
+     */
+    private V put(K key, V value, int hash) {
+        migrateStep();
 
-            int start = hashIndex;
-            int next = hashIndex;
+        //Drop removed entries first so they don't force a needless regrow
+        compactIfNeeded();
 
-            //Get first entry with this hashcode
-            MapEntry<K, V> currentEntry = table[hashIndex];
+        //Check if load factor is exceeded and resize if needed. Removed
+        //entries still occupy slots and lengthen probes, so they count too
+        double loadFac = (double) (size + removedCount + 1)
+                / (double) table.length;
+        if (loadFac > MAX_LOAD_FACTOR) {
+            int length = (capacityPolicy == CapacityPolicy.POWER_OF_TWO)
+                    ? table.length * 2 : table.length * 2 + 1;
+            if (incrementalResize) {
+                startMigration(length);
+            } else {
+                resizeBackingTable(length);
+            }
+        }
 
-            //Make temp hashcode to index with from entry to be added
-            int hashTemp = Math.abs(entry.getKey().hashCode()) % table.length;
+        //Keys not migrated yet are updated where they are
+        int oldIndex = indexInOldTable(key, hash);
+        if (oldIndex >= 0) {
+            recordProbes(addProbes, lastProbes);
+            V out = oldTable[oldIndex].getValue();
+            oldTable[oldIndex].setValue(value);
+            return out;
+        }
 
-            //Look for closest entry that has been removed
-            while (currentEntry != null) {
+        if (strategy == ProbingStrategy.ROBIN_HOOD) {
+            int index = indexOf(key, hash);
+            recordProbes(addProbes, lastProbes);
+            if (index >= 0) {
+                V out = table[index].getValue();
+                table[index].setValue(value);
+                return out;
+            }
+            placeRobinHood(new MapEntry<>(key, value), table);
+            size++;
+            modCount++;
+            return null;
+        }
 
-                if (!isRemoved) {
-                    if (currentEntry.isRemoved()) {
-                        start = hashTemp;
-                        isRemoved = true;
-                    }
-                }
+        int index = homeSlot(hash, table.length);
+        int firstRemoved = -1;
+        int probes = 0;
 
-                //if the key already exists, get the old value and update it
-                //return the old value
-                if (currentEntry.getKey().equals(key)) {
-                    V out = table[hashTemp].getValue();
-                    table[hashTemp].setValue(value);
-                    return out;
+        //Walk the probe run, remembering the first removed slot to reuse
+        //and updating the value in place if the key already exists
+        while ((probes < table.length) && (table[index] != null)) {
+            probes++;
+            MapEntry<K, V> current = table[index];
+            if (current.isRemoved()) {
+                if (firstRemoved < 0) {
+                    firstRemoved = index;
                 }
-
-                hashTemp = next;
-                currentEntry = table[hashTemp];
-                i++;
-                next = (Math.abs(entry.getKey().hashCode()) + i) % table.length;
+            } else if (current.getKey().equals(key)) {
+                recordProbes(addProbes, probes);
+                V out = current.getValue();
+                current.setValue(value);
+                return out;
             }
+            index = nextIndex(index, table.length);
+        }
+        //The empty slot that ended the run was examined too
+        recordProbes(addProbes, probes + 1);
 
-            if (isRemoved) {
-
-                table[start] = entry;
-                size++;
-                return null;
-
-            } else if (table[hashTemp] == null) {
-                table[hashTemp] = entry;
-                size++;
-                return null;
-            }
+        if (firstRemoved >= 0) {
+            index = firstRemoved;
+            removedCount--;
         }
+        table[index] = new MapEntry<>(key, value);
+        size++;
+        modCount++;
         return null;
     }
 
@@ -130,221 +314,818 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Key cannot be null");
         }
-        
-        int hashCode = Math.abs(key.hashCode()) % table.length;
-        
-        MapEntry<K, V> current = table[hashCode];
 
-        int i = 0;
-        if (current == null) {
-            throw new java.util.NoSuchElementException("Key : <" + key
-                + "> was not found in this hashmap");
+        migrateStep();
+
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        int probes = lastProbes;
+        if (index < 0) {
+            //Keys not migrated yet are marked removed in the old table,
+            //which is never compacted or shifted while it is being drained
+            int oldIndex = indexInOldTable(key, hash);
+            recordProbes(removeProbes,
+                    probes + ((oldTable != null) ? lastProbes : 0));
+            if (oldIndex < 0) {
+                throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this hashmap");
+            }
+            MapEntry<K, V> current = oldTable[oldIndex];
+            current.setRemoved(true);
+            size--;
+            modCount++;
+            return current.getValue();
         }
 
-        int mapSize = 0;
-
-        //loop through the hashmap and look for entry with matching key
-        //return old value, and update map entry isRemoved field to true
-        while ((mapSize < table.length) && (current != null)) {
+        recordProbes(removeProbes, probes);
+        MapEntry<K, V> current = table[index];
+        V out = current.getValue();
+        size--;
+        modCount++;
 
-            if (current.getKey().equals(key)) {
+        if (strategy == ProbingStrategy.ROBIN_HOOD) {
+            shiftBackward(index);
+            return out;
+        }
 
-                if (!current.isRemoved()) {
+        //Leave the entry in place as a marker so later probe runs stay intact
+        current.setRemoved(true);
+        removedCount++;
 
-                    V out = current.getValue();
-                    current.setRemoved(true);
-                    size--;
+        compactIfNeeded();
+        return out;
+    }
 
-                    return out;
+    @Override
+    public V get(K key) {
+        MapEntry<K, V> found = lookup(key);
 
-                } else if (current.isRemoved()) {
-                    throw new java.util.NoSuchElementException("This element "
-                            + "has already been removed!");
-                }
-            }
+        //Exception when matching key not found
+        if (found == null) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return found.getValue();
+    }
 
-            i++;
+    /**
+     * Gets the value associated with the given key without throwing on a
+     * miss, so a miss costs no more than a hit.
+     *
+     * @param key the key to search for
+     * @param defaultValue value to return if the key is not in the map
+     * @throws IllegalArgumentException if key is null
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    public V getOrDefault(K key, V defaultValue) {
+        MapEntry<K, V> found = lookup(key);
+        return (found == null) ? defaultValue : found.getValue();
+    }
 
-            int hashTemp = (Math.abs(key.hashCode()) + i) % table.length;
+    @Override
+    public boolean contains(K key) {
+        return lookup(key) != null;
+    }
 
-            current = table[hashTemp];
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        size = 0;
+        removedCount = 0;
+        oldTable = null;
+        migrateIndex = 0;
+        table = new MapEntry[tableLength(STARTING_SIZE)];
+        modCount++;
+    }
 
-            mapSize++;
+    @Override
+    public int size() {
+        return size;
+    }
 
-            //Throw exception if entry doesn't exist
-            if (current == null) {
-                throw new java.util.NoSuchElementException("Key could not be "
-                        + "found");
+    /**
+     * Returns a live Set view of the keys in this map. The view copies
+     * nothing: its iterator walks the backing table directly, skipping
+     * empty slots and removed entries, and fails fast if the map is
+     * structurally modified during iteration.
+     *
+     * @return set view of the keys in this map
+     */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return keyIterator();
             }
 
-        }
-
-        if (mapSize == table.length) {
-            throw new java.util.NoSuchElementException("Key could not be"
-                    + " found");
-        }
+            @Override
+            public int size() {
+                return size;
+            }
 
-        return null;
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                return (o != null) && HashMap.this.contains((K) o);
+            }
+        };
     }
 
     @Override
-    public V get(K key) {
-
-        //Null check
-        if (key == null) {
-            throw new IllegalArgumentException("Key cannot be null.");
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        Iterator<V> iterator = valueIterator();
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
         }
+        return values;
+    }
 
-        int hash = key.hashCode() % table.length;
+    /**
+     * Returns an iterator over the keys in this map that walks the backing
+     * table directly. It fails fast with a
+     * {@link ConcurrentModificationException} if the map is structurally
+     * modified after the iterator was created.
+     *
+     * @return iterator over the keys in this map
+     */
+    public Iterator<K> keyIterator() {
+        return new TableIterator<K>() {
+            @Override
+            public K next() {
+                return nextEntry().getKey();
+            }
+        };
+    }
 
-        MapEntry<K, V> current = table[hash];
+    /**
+     * Returns an iterator over the values in this map that walks the backing
+     * table directly. Unlike {@link #values()}, nothing is copied. It fails
+     * fast with a {@link ConcurrentModificationException} if the map is
+     * structurally modified after the iterator was created.
+     *
+     * @return iterator over the values in this map
+     */
+    public Iterator<V> valueIterator() {
+        return new TableIterator<V>() {
+            @Override
+            public V next() {
+                return nextEntry().getValue();
+            }
+        };
+    }
 
+    /**
+     * Returns an iterator over the live entries of this map that walks the
+     * backing table directly. The entries returned are the ones stored in
+     * the table, not copies. It fails fast with a
+     * {@link ConcurrentModificationException} if the map is structurally
+     * modified after the iterator was created.
+     *
+     * @return iterator over the entries in this map
+     */
+    public Iterator<MapEntry<K, V>> entryIterator() {
+        return new TableIterator<MapEntry<K, V>>() {
+            @Override
+            public MapEntry<K, V> next() {
+                return nextEntry();
+            }
+        };
+    }
 
-        //Entry doesn't exist
-        if (current == null) {
-            throw new java.util.NoSuchElementException("Hashmap does not  "
-                    + "contain that key");
+    /**
+     * Performs the given action on every key-value pair in this map, in
+     * table order, without allocating.
+     *
+     * @param action the action to perform on each pair
+     * @throws IllegalArgumentException if action is null
+     * @throws ConcurrentModificationException if the action structurally
+     * modifies the map
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null.");
+        }
+        int expected = modCount;
+        forEachIn(table, 0, action, expected);
+        if (oldTable != null) {
+            forEachIn(oldTable, migrateIndex, action, expected);
         }
+    }
 
-        int i = 0;
+    @Override
+    @SuppressWarnings("unchecked")
+    public void resizeBackingTable(int length) {
+        if ((length <= 0) || (length) < size) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        long start = (addProbes != null) ? System.nanoTime() : 0;
+        finishMigration();
 
-        int hashTemp = hash;
-        int mapSize = 0;
+        length = tableLength(length);
+        MapEntry<K, V>[] temp = new MapEntry[length];
 
-        //Loop through looking for entry with matching key and return its value
-        while ((current != null) && (mapSize < table.length)) {
-            if (current.getKey().equals(key)) {
-                return current.getValue();
+        //Removed entries are dropped, only live ones are rehashed
+        for (MapEntry<K, V> current : table) {
+            if ((current != null) && !current.isRemoved()) {
+                place(current, temp);
             }
+        }
+        table = temp;
+        removedCount = 0;
+        modCount++;
+        recordResize(start);
+    }
 
-            i++;
+    /**
+     * Turns incremental resizing on or off. When it is on, a regrow
+     * triggered by {@link #add} allocates the new table but leaves the
+     * entries in the old one. Every later add and remove then moves a few
+     * old slots across, and lookups check both tables until the old one is
+     * drained. This caps the cost of any single add at the price of a
+     * second probe on misses while a resize is in progress.
+     * <p>
+     * Turning it off finishes any resize in progress. Explicit calls to
+     * {@link #resizeBackingTable} always resize all at once.
+     *
+     * @param enabled true to spread regrows across later operations
+     */
+    public void setIncrementalResize(boolean enabled) {
+        if (!enabled) {
+            finishMigration();
+        }
+        incrementalResize = enabled;
+    }
 
-            hashTemp = (Math.abs(key.hashCode()) + i) % table.length;
+    /**
+     * Turns statistics collection on or off. While it is on, every add, get
+     * and remove records how many slots it probed, and every resize and
+     * compaction is counted and timed. Turning it on starts from zero.
+     * <p>
+     * While it is off, operations pay a single null check and nothing is
+     * recorded.
+     *
+     * @param enabled true to record statistics
+     */
+    public void setStatsEnabled(boolean enabled) {
+        if (enabled) {
+            addProbes = new long[HashMapStats.HISTOGRAM_BUCKETS];
+            getProbes = new long[HashMapStats.HISTOGRAM_BUCKETS];
+            removeProbes = new long[HashMapStats.HISTOGRAM_BUCKETS];
+        } else {
+            addProbes = null;
+            getProbes = null;
+            removeProbes = null;
+        }
+        resizeCount = 0;
+        totalResizeNanos = 0;
+        maxResizeNanos = 0;
+        compactionCount = 0;
+    }
 
-            current = table[hashTemp];
+    /**
+     * Returns a snapshot of this map's statistics.
+     * <p>
+     * The slot counts and the cluster length distribution are computed from
+     * the backing table on every call, so they are available even when
+     * statistics are off. They describe the current table only, not the old
+     * one of a resize in progress. Probe histograms, resize and compaction
+     * figures are all zero unless {@link #setStatsEnabled} was turned on.
+     * <p>
+     * This walks the whole table, so it is O(capacity).
+     *
+     * @return the statistics of this map
+     */
+    public HashMapStats getStats() {
+        int live = 0;
+        int removed = 0;
+        for (MapEntry<K, V> current : table) {
+            if (current != null) {
+                if (current.isRemoved()) {
+                    removed++;
+                } else {
+                    live++;
+                }
+            }
+        }
 
-            mapSize++;
+        //Start counting just after an empty slot so no cluster is split by
+        //the wrap-around at the end of the table
+        long[] clusters = new long[HashMapStats.HISTOGRAM_BUCKETS];
+        int longest = 0;
+        int start = -1;
+        for (int i = 0; (i < table.length) && (start < 0); i++) {
+            if (table[i] == null) {
+                start = i;
+            }
+        }
+        if (start < 0) {
+            longest = table.length;
+            HashMapStats.record(clusters, longest);
+        } else {
+            int run = 0;
+            for (int step = 1; step <= table.length; step++) {
+                if (table[(start + step) % table.length] != null) {
+                    run++;
+                } else if (run > 0) {
+                    HashMapStats.record(clusters, run);
+                    longest = Math.max(longest, run);
+                    run = 0;
+                }
+            }
         }
 
-        //Exception when matching key not found
-        throw new java.util.NoSuchElementException("The hashmap does not"
-                + " contain that key.");
+        long[] none = new long[HashMapStats.HISTOGRAM_BUCKETS];
+        return new HashMapStats((addProbes == null) ? none : addProbes,
+                (getProbes == null) ? none : getProbes,
+                (removeProbes == null) ? none : removeProbes,
+                clusters, table.length, live, removed, longest, resizeCount,
+                totalResizeNanos, maxResizeNanos, compactionCount);
     }
 
-    @Override
-    public boolean contains(K key) {
-        //Get throws exception if key isn't found, so try-catch block checks
-        //if key could be found or not
-        try {
-            get(key);
-
-        } catch (java.util.NoSuchElementException exception) {
-
-            return false;
+    /**
+     * Private helper for the lookups that checks the key, finds its entry
+     * and records the probes.
+     *
+     * @param key the key to search for
+     * @throws IllegalArgumentException if key is null
+     * @return the entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> lookup(K key) {
+        //Null check
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
         }
+        MapEntry<K, V> found = find(key, hash(key));
+        recordProbes(getProbes, lastProbes);
+        return found;
+    }
 
-        return true;
-
+    /**
+     * Private helper to find the live entry with the given key in either
+     * table.
+     *
+     * @param key the key to search for
+     * @param hash the key's hash from {@link #hash}
+     * @return the entry, or null if the key is not in the map
+     */
+    private MapEntry<K, V> find(K key, int hash) {
+        int index = indexOf(key, hash);
+        if (index >= 0) {
+            return table[index];
+        }
+        int probes = lastProbes;
+        int oldIndex = indexInOldTable(key, hash);
+        if (oldTable != null) {
+            lastProbes += probes;
+        }
+        return (oldIndex >= 0) ? oldTable[oldIndex] : null;
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public void clear() {
-        size = 0;
-        table = new MapEntry[STARTING_SIZE];
+    /**
+     * Private helper to find the live entry with the given key.
+     *
+     * @param key the key to search for
+     * @param hash the key's hash from {@link #hash}
+     * @return index of the entry in the table, or -1 if the key is not in
+     * the table
+     */
+    private int indexOf(K key, int hash) {
+        return indexIn(table, key, hash);
     }
 
-    @Override
-    public int size() {
-        return size;
+    /**
+     * Private helper to find a live entry that is still waiting to be moved
+     * out of the old table. Slots before {@code migrateIndex} have already
+     * been moved, so matches there are ignored.
+     *
+     * @param key the key to search for
+     * @param hash the key's hash from {@link #hash}
+     * @return index of the entry in the old table, or -1 if no resize is in
+     * progress or the key is not waiting in the old table
+     */
+    private int indexInOldTable(K key, int hash) {
+        if (oldTable == null) {
+            return -1;
+        }
+        int index = indexIn(oldTable, key, hash);
+        return (index >= migrateIndex) ? index : -1;
     }
 
-    @Override
-    public Set<K> keySet() {
-        Set<K> keys = new HashSet<>();
+    /**
+     * Private helper to find the live entry with the given key in a table.
+     * The number of slots examined is left in {@code lastProbes}.
+     *
+     * @param target the table to search
+     * @param key the key to search for
+     * @param hash the key's hash from {@link #hash}
+     * @return index of the entry in {@code target}, or -1 if the key is not
+     * there
+     */
+    private int indexIn(MapEntry<K, V>[] target, K key, int hash) {
+        int length = target.length;
+        int index = homeSlot(hash, length);
 
-        for (MapEntry<K, V> entry : table) {
+        int i = 0;
+        while ((i < length) && (target[index] != null)) {
+            MapEntry<K, V> current = target[index];
+            i++;
+            if (!current.isRemoved() && current.getKey().equals(key)) {
+                lastProbes = i;
+                return index;
+            }
+            //Robin Hood keeps runs sorted by distance from home, so a
+            //closer-to-home entry means the key would have been placed here
+            if ((strategy == ProbingStrategy.ROBIN_HOOD)
+                    && (probeDistance(current, index, length) < i - 1)) {
+                lastProbes = i;
+                return -1;
+            }
+            index = nextIndex(index, length);
+        }
+        //The empty slot that ended the run was examined too
+        lastProbes = (i < length) ? i + 1 : i;
+        return -1;
+    }
 
-            if (entry != null) {
+    /**
+     * Private helper that inserts an entry whose key is not yet in
+     * {@code target}, using the map's probing strategy.
+     *
+     * @param entry the entry to insert
+     * @param target the table to insert into, which must have an empty slot
+     */
+    private void place(MapEntry<K, V> entry, MapEntry<K, V>[] target) {
+        if (strategy == ProbingStrategy.ROBIN_HOOD) {
+            placeRobinHood(entry, target);
+        } else {
+            int index = indexFor(entry.getKey(), target.length);
+            while (target[index] != null) {
+                index = nextIndex(index, target.length);
+            }
+            target[index] = entry;
+        }
+    }
 
-                if (entry.getKey() != null) {
-                    keys.add(entry.getKey());
-                }
+    /**
+     * Private helper that starts an incremental resize into a new table of
+     * the given length. A resize that is still in progress is finished
+     * first.
+     *
+     * @param length the requested length of the new table
+     */
+    @SuppressWarnings("unchecked")
+    private void startMigration(int length) {
+        long start = (addProbes != null) ? System.nanoTime() : 0;
+        finishMigration();
+        oldTable = table;
+        migrateIndex = 0;
+        table = new MapEntry[tableLength(length)];
+        removedCount = 0;
+        modCount++;
+        recordResize(start);
+    }
 
+    /**
+     * Private helper that moves the next {@code MIGRATION_STEP} slots of the
+     * old table into the current table, if a resize is in progress.
+     */
+    private void migrateStep() {
+        if (oldTable == null) {
+            return;
+        }
+        int end = Math.min(migrateIndex + MIGRATION_STEP, oldTable.length);
+        while (migrateIndex < end) {
+            MapEntry<K, V> current = oldTable[migrateIndex];
+            if ((current != null) && !current.isRemoved()) {
+                place(current, table);
             }
+            migrateIndex++;
         }
+        if (migrateIndex == oldTable.length) {
+            oldTable = null;
+            migrateIndex = 0;
+        }
+        modCount++;
+    }
 
-        return keys;
+    /**
+     * Private helper that moves everything left in the old table, if a
+     * resize is in progress.
+     */
+    private void finishMigration() {
+        while (oldTable != null) {
+            migrateStep();
+        }
     }
 
-    @Override
-    public List<V> values() {
-        List<V> values = new ArrayList<>();
+    /**
+     * Private helper to compute how far an entry sits from its home slot.
+     *
+     * @param entry the entry to measure
+     * @param slot the slot the entry is stored in
+     * @param length length of the table holding the entry
+     * @return the number of probes needed to reach the entry
+     */
+    private int probeDistance(MapEntry<K, V> entry, int slot, int length) {
+        int home = indexFor(entry.getKey(), length);
+        return (slot >= home) ? slot - home : slot - home + length;
+    }
 
-        for (MapEntry<K, V> entry : table) {
-            if (entry != null) {
-                values.add(entry.getValue());
+    /**
+     * Private helper that inserts an entry whose key is not yet in
+     * {@code target} using Robin Hood probing. Whenever the incoming entry
+     * is further from home than the resident one, they swap and the
+     * resident continues down the run instead.
+     *
+     * @param entry the entry to insert
+     * @param target the table to insert into, which must have an empty slot
+     */
+    private void placeRobinHood(MapEntry<K, V> entry,
+                                MapEntry<K, V>[] target) {
+        int length = target.length;
+        int index = indexFor(entry.getKey(), length);
+        int distance = 0;
+
+        while (target[index] != null) {
+            int residentDistance = probeDistance(target[index], index, length);
+            if (residentDistance < distance) {
+                MapEntry<K, V> resident = target[index];
+                target[index] = entry;
+                entry = resident;
+                distance = residentDistance;
             }
+            index = nextIndex(index, length);
+            distance++;
         }
-
-        return values;
+        target[index] = entry;
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public void resizeBackingTable(int length) {
-        if ((length <= 0) || (length) < size) {
-            throw new IllegalArgumentException("Length was not positive or"
-                    + " was less than the size of the hashmap");
+    /**
+     * Private helper for backward-shift deletion. Empties the slot at
+     * {@code index} and moves each following entry that is not in its home
+     * slot back by one, so no removed marker is left behind.
+     *
+     * @param index the slot being removed
+     */
+    private void shiftBackward(int index) {
+        int hole = index;
+        int next = nextIndex(hole, table.length);
+
+        while ((table[next] != null)
+                && (probeDistance(table[next], next, table.length) > 0)) {
+            table[hole] = table[next];
+            hole = next;
+            next = nextIndex(next, table.length);
         }
-        MapEntry<K, V>[] temp = new MapEntry[length];
+        table[hole] = null;
+    }
 
-        int index = 0;
+    /**
+     * Private helper to compute the home slot of a key.
+     *
+     * @param key the key to hash
+     * @param length length of the table being indexed
+     * @return the first slot to probe for the key
+     */
+    private int indexFor(K key, int length) {
+        return homeSlot(hash(key), length);
+    }
 
-        while ((index < table.length)) {
-            MapEntry<K, V> current = table[index];
+    /**
+     * Private helper to hash a key. Under
+     * {@link CapacityPolicy#POWER_OF_TWO} the hash code is scrambled so that
+     * its low bits can be masked off directly.
+     *
+     * @param key the key to hash
+     * @return the hash that {@link #homeSlot} turns into a slot
+     */
+    private int hash(K key) {
+        if (capacityPolicy == CapacityPolicy.POWER_OF_TWO) {
+            return Hashing.mix(key.hashCode());
+        }
+        return key.hashCode();
+    }
 
-            if (current == null) {
-                index++;
-            } else if (current != null) {
+    /**
+     * Private helper to compute the home slot of a hash.
+     *
+     * @param hash the hash from {@link #hash}
+     * @param length length of the table being indexed
+     * @return the first slot to probe for the hash
+     */
+    private int homeSlot(int hash, int length) {
+        if (capacityPolicy == CapacityPolicy.POWER_OF_TWO) {
+            return hash & (length - 1);
+        }
+        //Same slot as Math.abs(hash) % length, but never negative, even
+        //for MIN_VALUE
+        return Math.abs(hash % length);
+    }
 
-                if (!current.isRemoved()) {
+    /**
+     * Private helper to step to the next slot of a probe run, wrapping
+     * around without a division.
+     *
+     * @param index the current slot
+     * @param length length of the table being probed
+     * @return the slot after {@code index}
+     */
+    private static int nextIndex(int index, int length) {
+        return (index + 1 == length) ? 0 : index + 1;
+    }
 
-                    int hash = Math.abs(current.getKey().hashCode()) % length;
-                    if (temp[hash] == null) {
+    /**
+     * Private helper to apply the capacity policy to a requested length.
+     *
+     * @param length the requested length of the backing array
+     * @return the length the backing array will actually have
+     */
+    private int tableLength(int length) {
+        if (capacityPolicy == CapacityPolicy.POWER_OF_TWO) {
+            return Hashing.nextPowerOfTwo(length);
+        }
+        return length;
+    }
 
-                        temp[hash] = current;
+    /**
+     * Private helper that compacts the table once removed entries take up
+     * more than {@code MAX_REMOVED_RATIO} of it.
+     */
+    private void compactIfNeeded() {
+        if (removedCount > table.length * MAX_REMOVED_RATIO) {
+            compact();
+        }
+    }
 
-                    } else {
+    /**
+     * Private helper that clears every removed entry and rebuilds the probe
+     * runs in place, without changing the length of the table.
+     * <p>
+     * The sweep starts just after a slot that was already empty. No probe
+     * run crosses that slot, so re-placing each live entry from its home
+     * slot can only move it backwards along its own run, never past an
+     * entry that has not been swept yet.
+     */
+    private void compact() {
+        int start = -1;
+        for (int i = 0; (i < table.length) && (start < 0); i++) {
+            if (table[i] == null) {
+                start = i;
+            }
+        }
 
-                        int k = 0;
-                        int hashTemp =  (Math.abs(current.getKey().hashCode())
-                                + k) % length;
+        //No empty slot to anchor the sweep, rebuild into a fresh array
+        if (start < 0) {
+            resizeBackingTable(table.length);
+            return;
+        }
+        if (addProbes != null) {
+            compactionCount++;
+        }
 
-                        MapEntry<K, V> toAdd = temp[hashTemp];
+        for (int i = 0; i < table.length; i++) {
+            if ((table[i] != null) && table[i].isRemoved()) {
+                table[i] = null;
+            }
+        }
 
-                        while (toAdd != null) {
-                            k++;
+        for (int step = 1; step <= table.length; step++) {
+            int slot = (start + step) % table.length;
+            MapEntry<K, V> current = table[slot];
+            if (current != null) {
+                table[slot] = null;
+                int index = indexFor(current.getKey(), table.length);
+                while (table[index] != null) {
+                    index = nextIndex(index, table.length);
+                }
+                table[index] = current;
+            }
+        }
+        removedCount = 0;
+        modCount++;
+    }
 
-                            hashTemp = (Math.abs(current.getKey().hashCode())
-                                    + k) % length;
+    /**
+     * Private helper that records one operation into a probe histogram, if
+     * statistics are on.
+     *
+     * @param histogram the histogram to record into, null when stats are off
+     * @param probes the number of slots the operation examined
+     */
+    private static void recordProbes(long[] histogram, int probes) {
+        if (histogram != null) {
+            HashMapStats.record(histogram, probes);
+        }
+    }
 
-                            toAdd = temp[hashTemp];
+    /**
+     * Private helper that counts and times a resize, if statistics are on.
+     *
+     * @param start the {@link System#nanoTime} at which the resize began
+     */
+    private void recordResize(long start) {
+        if (addProbes != null) {
+            long elapsed = System.nanoTime() - start;
+            resizeCount++;
+            totalResizeNanos += elapsed;
+            maxResizeNanos = Math.max(maxResizeNanos, elapsed);
+        }
+    }
 
-                        }
+    /**
+     * Private helper for {@link #forEach} that visits the live entries of
+     * one table.
+     *
+     * @param target the table to walk
+     * @param from the first slot to visit
+     * @param action the action to perform on each pair
+     * @param expected the modification count the map must still have
+     */
+    private void forEachIn(MapEntry<K, V>[] target, int from,
+                           BiConsumer<? super K, ? super V> action,
+                           int expected) {
+        for (int i = from; i < target.length; i++) {
+            MapEntry<K, V> current = target[i];
+            if ((current != null) && !current.isRemoved()) {
+                action.accept(current.getKey(), current.getValue());
+                if (modCount != expected) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
 
-                        if (temp[hashTemp] == null) {
+    /**
+     * Base for the iterators over the backing table. It visits the live
+     * entries of the current table, then those of the old table that have
+     * not been migrated yet.
+     *
+     * @param <E> the type of element returned by the iterator
+     */
+    private abstract class TableIterator<E> implements Iterator<E> {
+        private final int expectedModCount = modCount;
+        private MapEntry<K, V>[] current = table;
+        private int index = -1;
+        private boolean inOldTable;
+
+        /**
+         * Create an iterator positioned before the first live entry.
+         */
+        private TableIterator() {
+            advance();
+        }
 
-                            temp[hashTemp] = current;
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
 
-                        }
+        /**
+         * Returns the next live entry and moves past it.
+         *
+         * @return the next live entry
+         * @throws ConcurrentModificationException if the map was modified
+         * @throws NoSuchElementException if there are no entries left
+         */
+        protected MapEntry<K, V> nextEntry() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (current == null) {
+                throw new NoSuchElementException("No more entries in the "
+                        + "hashmap.");
+            }
+            MapEntry<K, V> out = current[index];
+            advance();
+            return out;
+        }
+
+        /**
+         * Moves to the next live entry, switching to the old table once the
+         * current one is exhausted. Leaves {@code current} null at the end.
+         */
+        private void advance() {
+            while (current != null) {
+                index++;
+                while (index < current.length) {
+                    MapEntry<K, V> entry = current[index];
+                    if ((entry != null) && !entry.isRemoved()) {
+                        return;
                     }
+                    index++;
+                }
+                if (!inOldTable && (oldTable != null)) {
+                    inOldTable = true;
+                    current = oldTable;
+                    index = migrateIndex - 1;
+                } else {
+                    current = null;
                 }
-                index++;
             }
         }
-        table = temp;
-
     }
 
     @Override
@@ -353,4 +1134,42 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         return table;
     }
 
+    /**
+     * Strategies for resolving collisions in the backing table.
+     */
+    public static enum ProbingStrategy {
+        /**
+         * Plain linear probing. Removed entries stay in the table, marked as
+         * removed, until the table is compacted or resized.
+         */
+        LINEAR,
+
+        /**
+         * Linear probing where an incoming entry takes the slot of any
+         * resident that is closer to its home slot. This keeps probe lengths
+         * close to the average and lets misses stop early. Removals shift
+         * the rest of the run back instead of leaving removed entries, so
+         * removed keys and values are not kept in the table.
+         */
+        ROBIN_HOOD
+    }
+
+    /**
+     * Policies for sizing and indexing the backing table.
+     */
+    public static enum CapacityPolicy {
+        /**
+         * Any length, growing to {@code 2n + 1}. Home slots are the hash code
+         * modulo the length, which needs an integer division.
+         */
+        ODD_GROWTH,
+
+        /**
+         * Power-of-two lengths, growing by doubling. Hash codes are scrambled
+         * with a murmur3 finalizer and home slots are taken with a mask, so
+         * no division is needed and weak low bits don't cluster.
+         */
+        POWER_OF_TWO
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,467 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only, memory-mapped view of a {@link HashMap} written to disk with
+ * {@link #write}.
+ * <p>
+ * The file is an open-addressed table that can be queried in place. It
+ * has a 16 byte header (magic, version, slot count, entry count), then one
+ * 8 byte slot per table position (key hash, record offset, where offset 0
+ * means empty), then the records. Each record is a length-prefixed key
+ * followed by a length-prefixed value. A lookup serializes the key once,
+ * probes the slots linearly, and compares raw key bytes only when the
+ * stored hash matches. Only the value that is found gets deserialized.
+ * <p>
+ * Slots are placed by a hash of the serialized key bytes, not by
+ * {@code hashCode()}, so a snapshot stays valid across processes and JVM
+ * versions. The whole file is mapped as one buffer, which limits a
+ * snapshot to 2GB.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class HashMapSnapshot<K, V> implements Closeable {
+
+    private static final int MAGIC = 0x484d5331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 8;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final int mask;
+    private final int size;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Create a snapshot view over a mapped file whose header has already
+     * been validated.
+     *
+     * @param buffer the mapped file
+     * @param keySerializer serializer for the keys
+     * @param valueSerializer serializer for the values
+     */
+    private HashMapSnapshot(MappedByteBuffer buffer,
+                            Serializer<K> keySerializer,
+                            Serializer<V> valueSerializer) {
+        this.buffer = buffer;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.mask = buffer.getInt(8) - 1;
+        this.size = buffer.getInt(12);
+    }
+
+    /**
+     * Writes every entry of the map to a snapshot file, replacing the file
+     * if it exists.
+     *
+     * @param map the map to write
+     * @param path the file to write to
+     * @param keySerializer serializer for the keys
+     * @param valueSerializer serializer for the values
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @throws IllegalArgumentException if any input is null
+     * @throws IOException if the file cannot be written or would exceed 2GB
+     */
+    public static <K, V> void write(HashMap<K, V> map, Path path,
+                                    Serializer<K> keySerializer,
+                                    Serializer<V> valueSerializer)
+        throws IOException {
+        if ((map == null) || (path == null) || (keySerializer == null)
+                || (valueSerializer == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null.");
+        }
+
+        int capacity = Hashing.tableSizeFor(map.size(),
+                HashMapInterface.MAX_LOAD_FACTOR);
+        int slotMask = capacity - 1;
+        int[] hashes = new int[capacity];
+        int[] offsets = new int[capacity];
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+            channel.position(position);
+            ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+
+            //Stream the records after the slot area, remembering where each
+            //one lands so the slots can be filled in afterwards
+            Iterator<MapEntry<K, V>> entries = map.entryIterator();
+            while (entries.hasNext()) {
+                MapEntry<K, V> entry = entries.next();
+                byte[] key = keySerializer.toBytes(entry.getKey());
+                byte[] value = valueSerializer.toBytes(entry.getValue());
+                long recordBytes = 8L + key.length + value.length;
+                if (position + recordBytes > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot would exceed 2GB.");
+                }
+
+                int hash = Hashing.hash(key);
+                int index = hash & slotMask;
+                while (offsets[index] != 0) {
+                    index = (index + 1) & slotMask;
+                }
+                hashes[index] = hash;
+                offsets[index] = (int) position;
+
+                writeRecord(channel, out, key, value);
+                position += recordBytes;
+            }
+            flush(channel, out);
+
+            ByteBuffer head = ByteBuffer.allocate(
+                    HEADER_BYTES + capacity * SLOT_BYTES);
+            head.putInt(MAGIC).putInt(VERSION).putInt(capacity)
+                    .putInt(map.size());
+            for (int i = 0; i < capacity; i++) {
+                head.putInt(hashes[i]).putInt(offsets[i]);
+            }
+            head.flip();
+            channel.position(0);
+            while (head.hasRemaining()) {
+                channel.write(head);
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot file for read-only queries. The file is not read up
+     * front; pages are loaded by the OS as lookups touch them.
+     *
+     * @param path the snapshot file
+     * @param keySerializer serializer for the keys
+     * @param valueSerializer serializer for the values
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return a view over the snapshot
+     * @throws IllegalArgumentException if any input is null
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static <K, V> HashMapSnapshot<K, V> open(Path path,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer)
+        throws IOException {
+        if ((path == null) || (keySerializer == null)
+                || (valueSerializer == null)) {
+            throw new IllegalArgumentException("Inputs cannot be null.");
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            long length = channel.size();
+            if ((length < HEADER_BYTES) || (length > Integer.MAX_VALUE)) {
+                throw new IOException("Not a hash map snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, length);
+            int capacity = buffer.getInt(8);
+            if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)
+                    || (Integer.bitCount(capacity) != 1)
+                    || (HEADER_BYTES + (long) capacity * SLOT_BYTES > length)) {
+                throw new IOException("Not a hash map snapshot: " + path);
+            }
+            return new HashMapSnapshot<>(buffer, keySerializer,
+                    valueSerializer);
+        }
+    }
+
+    /**
+     * Reads a snapshot file back into a new {@link HashMap}.
+     *
+     * @param path the snapshot file
+     * @param keySerializer serializer for the keys
+     * @param valueSerializer serializer for the values
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return a map holding every entry of the snapshot
+     * @throws IllegalArgumentException if any input is null
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static <K, V> HashMap<K, V> restore(Path path,
+            Serializer<K> keySerializer, Serializer<V> valueSerializer)
+        throws IOException {
+        try (HashMapSnapshot<K, V> snapshot = open(path, keySerializer,
+                valueSerializer)) {
+            return snapshot.toHashMap();
+        }
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @return the value associated with the given key
+     * @throws IllegalArgumentException if key is null
+     * @throws IllegalStateException if the snapshot has been closed
+     * @throws NoSuchElementException if the key is not in the snapshot
+     */
+    public V get(K key) {
+        int record = find(key);
+        if (record == 0) {
+            throw new NoSuchElementException("The snapshot does not"
+                    + " contain that key.");
+        }
+        int valueAt = record + 4 + buffer.getInt(record);
+        return valueSerializer.fromBytes(
+                slice(valueAt + 4, buffer.getInt(valueAt)));
+    }
+
+    /**
+     * Returns whether or not the key is in the snapshot.
+     *
+     * @param key the key to search for
+     * @return whether or not the key is in the snapshot
+     * @throws IllegalArgumentException if key is null
+     * @throws IllegalStateException if the snapshot has been closed
+     */
+    public boolean contains(K key) {
+        return find(key) != 0;
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     *
+     * @return number of entries in the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Deserializes every entry of the snapshot into a new {@link HashMap}
+     * sized so that it never regrows while loading.
+     *
+     * @return a map holding every entry of the snapshot
+     * @throws IllegalStateException if the snapshot has been closed
+     */
+    public HashMap<K, V> toHashMap() {
+        checkOpen();
+        HashMap<K, V> map = new HashMap<>((int) Math.min(Integer.MAX_VALUE,
+                (long) Math.ceil((size + 1)
+                        / HashMapInterface.MAX_LOAD_FACTOR) + 1));
+        for (int i = 0; i <= mask; i++) {
+            int record = buffer.getInt(HEADER_BYTES + i * SLOT_BYTES + 4);
+            if (record != 0) {
+                int keyLength = buffer.getInt(record);
+                int valueAt = record + 4 + keyLength;
+                map.add(keySerializer.fromBytes(slice(record + 4, keyLength)),
+                        valueSerializer.fromBytes(
+                                slice(valueAt + 4, buffer.getInt(valueAt))));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Releases this view's reference to the mapped file. The mapping itself
+     * is unmapped by the JVM once it is no longer reachable.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * Private helper to probe the slots for a key.
+     *
+     * @param key the key to search for
+     * @return offset of the key's record, or 0 if it is not in the snapshot
+     */
+    private int find(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        checkOpen();
+        byte[] bytes = keySerializer.toBytes(key);
+        int hash = Hashing.hash(bytes);
+        int index = hash & mask;
+
+        for (int i = 0; i <= mask; i++) {
+            int slot = HEADER_BYTES + index * SLOT_BYTES;
+            int record = buffer.getInt(slot + 4);
+            if (record == 0) {
+                return 0;
+            }
+            if ((buffer.getInt(slot) == hash) && keyEquals(record, bytes)) {
+                return record;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Private helper to compare a stored key with serialized key bytes.
+     *
+     * @param record offset of the record holding the stored key
+     * @param bytes the serialized key to compare against
+     * @return true if the stored key has exactly these bytes
+     */
+    private boolean keyEquals(int record, byte[] bytes) {
+        if (buffer.getInt(record) != bytes.length) {
+            return false;
+        }
+        int start = record + 4;
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private helper to expose part of the mapping as its own buffer.
+     *
+     * @param offset where the bytes start
+     * @param length how many bytes to expose
+     * @return a read-only buffer over exactly those bytes
+     */
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Private helper that rejects use after {@link #close()}.
+     */
+    private void checkOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("Snapshot has been closed.");
+        }
+    }
+
+    /**
+     * Private helper to append one record through the write buffer.
+     *
+     * @param channel the file being written
+     * @param out the write buffer
+     * @param key the serialized key
+     * @param value the serialized value
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeRecord(FileChannel channel, ByteBuffer out,
+                                    byte[] key, byte[] value)
+        throws IOException {
+        if (out.remaining() < 8 + key.length + value.length) {
+            flush(channel, out);
+        }
+        if (out.remaining() < 8 + key.length + value.length) {
+            //Too big for the buffer, write it straight through
+            ByteBuffer big = ByteBuffer.allocate(8 + key.length
+                    + value.length);
+            big.putInt(key.length).put(key).putInt(value.length).put(value);
+            big.flip();
+            while (big.hasRemaining()) {
+                channel.write(big);
+            }
+        } else {
+            out.putInt(key.length).put(key).putInt(value.length).put(value);
+        }
+    }
+
+    /**
+     * Private helper to drain the write buffer to the file.
+     *
+     * @param channel the file being written
+     * @param out the write buffer
+     * @throws IOException if the file cannot be written
+     */
+    private static void flush(FileChannel channel, ByteBuffer out)
+        throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Converts keys or values to and from the bytes stored in a snapshot.
+     * Two equal objects must serialize to the same bytes, since lookups
+     * compare serialized keys.
+     *
+     * @param <T> the type being serialized
+     */
+    public interface Serializer<T> {
+
+        /**
+         * Serializer for strings, stored as UTF-8.
+         */
+        Serializer<String> STRING = new Serializer<String>() {
+            @Override
+            public byte[] toBytes(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String fromBytes(ByteBuffer bytes) {
+                byte[] out = new byte[bytes.remaining()];
+                bytes.get(out);
+                return new String(out, StandardCharsets.UTF_8);
+            }
+        };
+
+        /**
+         * Serializer for integers, stored as 4 big-endian bytes.
+         */
+        Serializer<Integer> INTEGER = new Serializer<Integer>() {
+            @Override
+            public byte[] toBytes(Integer value) {
+                return ByteBuffer.allocate(4).putInt(value).array();
+            }
+
+            @Override
+            public Integer fromBytes(ByteBuffer bytes) {
+                return bytes.getInt(0);
+            }
+        };
+
+        /**
+         * Serializer for longs, stored as 8 big-endian bytes.
+         */
+        Serializer<Long> LONG = new Serializer<Long>() {
+            @Override
+            public byte[] toBytes(Long value) {
+                return ByteBuffer.allocate(8).putLong(value).array();
+            }
+
+            @Override
+            public Long fromBytes(ByteBuffer bytes) {
+                return bytes.getLong(0);
+            }
+        };
+
+        /**
+         * Converts an object to bytes.
+         *
+         * @param value the object to serialize, never null
+         * @return the serialized bytes
+         */
+        byte[] toBytes(T value);
+
+        /**
+         * Converts bytes back to an object.
+         *
+         * @param bytes a buffer holding exactly the serialized bytes, from
+         *              position zero to its limit
+         * @return the deserialized object
+         */
+        T fromBytes(ByteBuffer bytes);
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.Arrays;
+
+/**
+ * Point-in-time snapshot of the statistics of a {@link HashMap}, as returned
+ * by {@link HashMap#getStats()}.
+ * <p>
+ * Probe lengths count the slots examined by one operation, so a key found in
+ * its home slot took one probe. Histograms have {@code HISTOGRAM_BUCKETS}
+ * buckets, where bucket {@code i} counts operations of {@code i + 1} probes
+ * and the last bucket also holds everything longer. Cluster lengths use the
+ * same buckets for runs of consecutive occupied slots, removed entries
+ * included.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public final class HashMapStats {
+
+    /**
+     * Number of buckets in every histogram of this snapshot.
+     */
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    private final long[] addProbes;
+    private final long[] getProbes;
+    private final long[] removeProbes;
+    private final long[] clusterLengths;
+    private final int capacity;
+    private final int liveSlots;
+    private final int removedSlots;
+    private final int longestCluster;
+    private final long resizeCount;
+    private final long totalResizeNanos;
+    private final long maxResizeNanos;
+    private final long compactionCount;
+
+    /**
+     * Create a snapshot. The arrays are copied.
+     *
+     * @param addProbes probe length histogram of add
+     * @param getProbes probe length histogram of get
+     * @param removeProbes probe length histogram of remove
+     * @param clusterLengths cluster length histogram of the backing table
+     * @param capacity length of the backing table
+     * @param liveSlots slots holding live entries
+     * @param removedSlots slots holding removed entries
+     * @param longestCluster length of the longest cluster
+     * @param resizeCount number of resizes
+     * @param totalResizeNanos time spent in all resizes
+     * @param maxResizeNanos time spent in the slowest resize
+     * @param compactionCount number of in-place compactions
+     */
+    HashMapStats(long[] addProbes, long[] getProbes, long[] removeProbes,
+                 long[] clusterLengths, int capacity, int liveSlots,
+                 int removedSlots, int longestCluster, long resizeCount,
+                 long totalResizeNanos, long maxResizeNanos,
+                 long compactionCount) {
+        this.addProbes = addProbes.clone();
+        this.getProbes = getProbes.clone();
+        this.removeProbes = removeProbes.clone();
+        this.clusterLengths = clusterLengths.clone();
+        this.capacity = capacity;
+        this.liveSlots = liveSlots;
+        this.removedSlots = removedSlots;
+        this.longestCluster = longestCluster;
+        this.resizeCount = resizeCount;
+        this.totalResizeNanos = totalResizeNanos;
+        this.maxResizeNanos = maxResizeNanos;
+        this.compactionCount = compactionCount;
+    }
+
+    /**
+     * Records one operation of {@code probes} probes into a histogram.
+     *
+     * @param histogram the histogram to record into
+     * @param probes the number of slots the operation examined
+     */
+    static void record(long[] histogram, int probes) {
+        histogram[Math.min(Math.max(probes, 1), HISTOGRAM_BUCKETS) - 1]++;
+    }
+
+    /**
+     * Returns the probe length histogram of add.
+     *
+     * @return a copy of the histogram
+     */
+    public long[] getAddProbes() {
+        return addProbes.clone();
+    }
+
+    /**
+     * Returns the probe length histogram of get, getOrDefault, contains and
+     * getAll.
+     *
+     * @return a copy of the histogram
+     */
+    public long[] getGetProbes() {
+        return getProbes.clone();
+    }
+
+    /**
+     * Returns the probe length histogram of remove.
+     *
+     * @return a copy of the histogram
+     */
+    public long[] getRemoveProbes() {
+        return removeProbes.clone();
+    }
+
+    /**
+     * Returns the cluster length histogram of the backing table.
+     *
+     * @return a copy of the histogram
+     */
+    public long[] getClusterLengths() {
+        return clusterLengths.clone();
+    }
+
+    /**
+     * Returns the length of the backing table.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of slots holding live entries.
+     *
+     * @return the live slot count
+     */
+    public int getLiveSlots() {
+        return liveSlots;
+    }
+
+    /**
+     * Returns the number of slots holding removed entries.
+     *
+     * @return the removed slot count
+     */
+    public int getRemovedSlots() {
+        return removedSlots;
+    }
+
+    /**
+     * Returns the number of empty slots.
+     *
+     * @return the empty slot count
+     */
+    public int getEmptySlots() {
+        return capacity - liveSlots - removedSlots;
+    }
+
+    /**
+     * Returns the fraction of the backing table taken up by removed entries.
+     *
+     * @return the removed slot ratio, between 0 and 1
+     */
+    public double getRemovedRatio() {
+        return (capacity == 0) ? 0 : (double) removedSlots / capacity;
+    }
+
+    /**
+     * Returns the length of the longest run of occupied slots.
+     *
+     * @return the longest cluster
+     */
+    public int getLongestCluster() {
+        return longestCluster;
+    }
+
+    /**
+     * Returns the number of times the backing table was resized.
+     *
+     * @return the resize count
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the total time spent resizing the backing table. With
+     * incremental resizing only the allocation of the new table is timed,
+     * since the entries are moved by later operations.
+     *
+     * @return the total resize time in nanoseconds
+     */
+    public long getTotalResizeNanos() {
+        return totalResizeNanos;
+    }
+
+    /**
+     * Returns the time spent in the slowest resize.
+     *
+     * @return the slowest resize time in nanoseconds
+     */
+    public long getMaxResizeNanos() {
+        return maxResizeNanos;
+    }
+
+    /**
+     * Returns the number of times removed entries were compacted away
+     * without changing the length of the table.
+     *
+     * @return the compaction count
+     */
+    public long getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * Returns the mean probe length recorded in a histogram, counting the
+     * open-ended last bucket at its lower bound.
+     *
+     * @param histogram a histogram from this snapshot
+     * @return the mean probe length, or 0 if nothing was recorded
+     */
+    public static double mean(long[] histogram) {
+        long count = 0;
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            count += histogram[i];
+            total += histogram[i] * (i + 1);
+        }
+        return (count == 0) ? 0 : (double) total / count;
+    }
+
+    @Override
+    public String toString() {
+        return "HashMapStats{capacity=" + capacity
+                + ", live=" + liveSlots
+                + ", removed=" + removedSlots
+                + ", empty=" + getEmptySlots()
+                + ", longestCluster=" + longestCluster
+                + ", resizes=" + resizeCount
+                + ", resizeNanos=" + totalResizeNanos
+                + ", maxResizeNanos=" + maxResizeNanos
+                + ", compactions=" + compactionCount
+                + ", meanAddProbes=" + mean(addProbes)
+                + ", meanGetProbes=" + mean(getProbes)
+                + ", meanRemoveProbes=" + mean(removeProbes)
+                + ", clusters=" + Arrays.toString(clusterLengths) + "}";
+    }
+}
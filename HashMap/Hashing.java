@@ -0,0 +1,99 @@
+/**
+ * Hash mixing and capacity helpers shared by the hash map implementations.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+final class Hashing {
+
+    /**
+     * Largest power of two that fits in an int.
+     */
+    static final int MAX_POWER_OF_TWO = 1 << 30;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Hashing() {
+    }
+
+    /**
+     * Scrambles an int hash code with the murmur3 32-bit finalizer so that
+     * the low bits depend on every bit of the input. This is what makes it
+     * safe to index a power-of-two table with a mask.
+     *
+     * @param h the hash code to mix
+     * @return the mixed hash
+     */
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Scrambles a long key with the murmur3 64-bit finalizer and folds the
+     * result down to an int.
+     *
+     * @param key the key to mix
+     * @return the mixed hash
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Hashes a byte sequence with FNV-1a and finishes it with the murmur3
+     * finalizer. Unlike {@code hashCode()} on keys, this depends only on the
+     * bytes, so it is stable across processes.
+     *
+     * @param bytes the bytes to hash
+     * @return the hash of the bytes
+     */
+    static int hash(byte[] bytes) {
+        int h = 0x811c9dc5;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x01000193;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Rounds {@code n} up to the next power of two.
+     *
+     * @param n the requested length, must be positive
+     * @return the smallest power of two that is at least {@code n}
+     */
+    static int nextPowerOfTwo(int n) {
+        if (n >= MAX_POWER_OF_TWO) {
+            return MAX_POWER_OF_TWO;
+        }
+        int highest = Integer.highestOneBit(n);
+        return highest == n ? n : highest << 1;
+    }
+
+    /**
+     * Computes the power-of-two table length needed to hold {@code expected}
+     * entries without exceeding {@code loadFactor}.
+     *
+     * @param expected the number of entries the table must hold
+     * @param loadFactor the maximum load factor of the table
+     * @return the table length
+     */
+    static int tableSizeFor(int expected, double loadFactor) {
+        long needed = (long) Math.ceil(expected / loadFactor);
+        if (needed >= MAX_POWER_OF_TWO) {
+            return MAX_POWER_OF_TWO;
+        }
+        return nextPowerOfTwo((int) Math.max(needed, 2));
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from primitive int keys to primitive int values.
+ * <p>
+ * Keys and values live in parallel primitive arrays instead of a
+ * {@code MapEntry[]}, so nothing is boxed and no object is allocated per
+ * mapping. Collisions use linear probing over a power-of-two table, and
+ * removals use backward-shift deletion, so no tombstones are left behind.
+ * <p>
+ * Approximate footprint at 10M entries on a 64-bit JVM with compressed
+ * oops:
+ * <ul>
+ * <li>{@code HashMap<Integer, Integer>} grows to 20,971,519 slots. That is
+ * 84MB of references plus 24 bytes per {@code MapEntry} and 16 bytes per
+ * boxed key and value, for about 644MB in total.</li>
+ * <li>This map grows to 16,777,216 slots at 9 bytes each (key, value and
+ * used flag), for about 151MB in total.</li>
+ * </ul>
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class IntIntHashMap {
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    private final int noEntryValue;
+
+    /**
+     * Create a map with no entries and a backing array of at least
+     * {@code STARTING_SIZE} slots. {@link #add} returns 0 for new keys.
+     */
+    public IntIntHashMap() {
+        this(HashMapInterface.STARTING_SIZE);
+    }
+
+    /**
+     * Create a map with no entries and a backing array of at least
+     * {@code initialCapacity} slots. {@link #add} returns 0 for new keys.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * Create a map with no entries and a backing array of at least
+     * {@code initialCapacity} slots.
+     *
+     * @param initialCapacity initial capacity of the backing arrays
+     * @param noEntryValue value returned by {@link #add} when the key was
+     *                     not already in the map
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public IntIntHashMap(int initialCapacity, int noEntryValue) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be "
+                    + "positive.");
+        }
+        this.noEntryValue = noEntryValue;
+        allocate(Hashing.nextPowerOfTwo(initialCapacity));
+    }
+
+    /**
+     * Adds the given key-value pair to the map, replacing the value if the
+     * key is already present. The backing arrays are regrown before adding
+     * if the add would exceed {@code MAX_LOAD_FACTOR}.
+     *
+     * @param key key to add into the map
+     * @param value value to add into the map
+     * @return the old value associated with the key, or the no-entry value
+     * if the key was not already in the map
+     */
+    public int add(int key, int value) {
+        if ((double) (size + 1) / keys.length
+                > HashMapInterface.MAX_LOAD_FACTOR) {
+            resizeBackingTable(keys.length * 2);
+        }
+
+        int index = Hashing.mix(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                int out = values[index];
+                values[index] = value;
+                return out;
+            }
+            index = (index + 1) & mask;
+        }
+
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return noEntryValue;
+    }
+
+    /**
+     * Removes the value associated with the key from the map.
+     *
+     * @param key the key to remove
+     * @return the value previously associated with the key
+     * @throws NoSuchElementException if the key does not exist
+     */
+    public int remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this hashmap");
+        }
+        int out = values[index];
+        shiftKeys(index);
+        size--;
+        return out;
+    }
+
+    /**
+     * Gets the value associated with the given key.
+     *
+     * @param key the key to search for
+     * @return the value associated with the given key
+     * @throws NoSuchElementException if the key is not in the map
+     */
+    public int get(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return values[index];
+    }
+
+    /**
+     * Gets the value associated with the given key without throwing on a
+     * miss.
+     *
+     * @param key the key to search for
+     * @param defaultValue value to return if the key is not in the map
+     * @return the value associated with the key, or {@code defaultValue}
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Returns whether or not the key is in the map.
+     *
+     * @param key the key to search for
+     * @return whether or not the key is in the map
+     */
+    public boolean contains(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Clears the map and resets the backing arrays to the default size.
+     */
+    public void clear() {
+        allocate(Hashing.nextPowerOfTwo(HashMapInterface.STARTING_SIZE));
+        size = 0;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Resize the backing arrays to {@code length} rounded up to a power of
+     * two, rehashing every entry.
+     *
+     * @param length new minimum length of the backing arrays
+     * @throws IllegalArgumentException if length is non-positive or less
+     * than the number of entries in the map
+     */
+    public void resizeBackingTable(int length) {
+        if (length <= 0 || length < size) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        //Always leave at least one empty slot so probing terminates
+        allocate(Hashing.nextPowerOfTwo(Math.max(length, size + 1)));
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = Hashing.mix(oldKeys[i]) & mask;
+                while (used[index]) {
+                    index = (index + 1) & mask;
+                }
+                used[index] = true;
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Private helper to find the slot holding the given key.
+     *
+     * @param key the key to search for
+     * @return index of the key, or -1 if it is not in the map
+     */
+    private int indexOf(int key) {
+        int index = Hashing.mix(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Private helper for backward-shift deletion. Empties the slot at
+     * {@code index} and pulls later entries of the same probe run back so
+     * that every remaining key is still reachable from its home slot.
+     *
+     * @param index the slot being removed
+     */
+    private void shiftKeys(int index) {
+        int last = index;
+        int current = (last + 1) & mask;
+        while (used[current]) {
+            int home = Hashing.mix(keys[current]) & mask;
+            //Move the entry back only if its home is not between last and
+            //current, otherwise it would become unreachable
+            if (((current - home) & mask) >= ((current - last) & mask)) {
+                keys[last] = keys[current];
+                values[last] = values[current];
+                last = current;
+            }
+            current = (current + 1) & mask;
+        }
+        used[last] = false;
+    }
+
+    /**
+     * Private helper to allocate empty backing arrays.
+     *
+     * @param length length of the new arrays, a power of two
+     */
+    private void allocate(int length) {
+        keys = new int[length];
+        values = new int[length];
+        used = new boolean[length];
+        mask = length - 1;
+    }
+}
@@ -0,0 +1,688 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A HashMap from byte keys to byte values whose table lives in native
+ * memory, outside the Java heap, so the garbage collector never scans its
+ * entries.
+ * <p>
+ * The table is a direct {@link ByteBuffer} of fixed-size slots. Each slot
+ * holds a state byte, the key's 4-byte hash and a payload. Collisions use
+ * linear probing over a power-of-two table, and removals use
+ * backward-shift deletion, so no removed entries are left behind.
+ * <p>
+ * The payload depends on how the map was constructed:
+ * <ul>
+ * <li>Fixed width: every key and value has the same length, and both are
+ * stored inline in the slot.</li>
+ * <li>Length-prefixed: keys and values may have any length. They are
+ * appended as records to a second direct buffer, the arena, and the slot
+ * stores the record's offset. Space left behind by removed or resized
+ * records is reclaimed once it makes up half the arena.</li>
+ * </ul>
+ * Keys are compared by content, and {@link #get} and {@link #values()}
+ * return copies on the heap. Call {@link #close()} to free the native
+ * memory; the map cannot be used afterwards. Each buffer is limited to 2GB.
+ *
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class OffHeapHashMap implements HashMapInterface<byte[], byte[]>,
+        AutoCloseable {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final int HASH_OFFSET = 1;
+    private static final int PAYLOAD_OFFSET = 5;
+    private static final int STARTING_ARENA_BYTES = 1 << 12;
+
+    /**
+     * Rough shallow heap cost of the map object and its two buffer wrappers.
+     */
+    private static final long HEAP_OVERHEAD_BYTES = 256;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                    ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //Not available on this JVM, buffers are freed when collected
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int keyWidth;
+    private final int valueWidth;
+    private final int slotBytes;
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+    private ByteBuffer arena;
+    private int arenaUsed;
+    private int arenaGarbage;
+    private boolean closed;
+
+    /**
+     * Create a length-prefixed map with no entries. The table has an initial
+     * capacity of at least {@code STARTING_SIZE} slots.
+     */
+    public OffHeapHashMap() {
+        this(STARTING_SIZE);
+    }
+
+    /**
+     * Create a length-prefixed map with no entries. The table has an initial
+     * capacity of at least {@code initialCapacity} slots.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public OffHeapHashMap(int initialCapacity) {
+        this(initialCapacity, 0, 0, false);
+    }
+
+    /**
+     * Create a fixed-width map with no entries. Every key must be exactly
+     * {@code keyWidth} bytes and every value exactly {@code valueWidth}
+     * bytes. The table has an initial capacity of at least
+     * {@code initialCapacity} slots.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @param keyWidth length of every key in bytes
+     * @param valueWidth length of every value in bytes
+     * @throws IllegalArgumentException if any argument is not positive
+     */
+    public OffHeapHashMap(int initialCapacity, int keyWidth, int valueWidth) {
+        this(initialCapacity, keyWidth, valueWidth, true);
+    }
+
+    /**
+     * Create a map with no entries in either storage mode.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @param keyWidth length of every key in bytes, if fixed
+     * @param valueWidth length of every value in bytes, if fixed
+     * @param fixedWidth true to store keys and values inline in the slots
+     */
+    private OffHeapHashMap(int initialCapacity, int keyWidth, int valueWidth,
+                           boolean fixedWidth) {
+        if ((initialCapacity <= 0)
+                || (fixedWidth && ((keyWidth <= 0) || (valueWidth <= 0)))) {
+            throw new IllegalArgumentException("Capacity and widths must be "
+                    + "positive.");
+        }
+        this.keyWidth = fixedWidth ? keyWidth : 0;
+        this.valueWidth = valueWidth;
+        this.slotBytes = PAYLOAD_OFFSET
+                + (isFixedWidth() ? keyWidth + valueWidth : 4);
+        slots = allocateSlots(Hashing.nextPowerOfTwo(initialCapacity));
+        if (!isFixedWidth()) {
+            arena = ByteBuffer.allocateDirect(STARTING_ARENA_BYTES);
+        }
+    }
+
+    @Override
+    public byte[] add(byte[] key, byte[] value) {
+        checkOpen();
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Null value cannot be added.");
+        }
+        checkWidths(key, value);
+
+        if ((double) (size + 1) / (mask + 1) > MAX_LOAD_FACTOR) {
+            resizeBackingTable((mask + 1) * 2);
+        }
+
+        int hash = Hashing.hash(key);
+        int index = hash & mask;
+        while (slots.get(index * slotBytes) == FULL) {
+            int slot = index * slotBytes;
+            if ((slots.getInt(slot + HASH_OFFSET) == hash)
+                    && keyEquals(slot, key)) {
+                byte[] out = readValue(slot);
+                writeValue(slot, key, value);
+                return out;
+            }
+            index = (index + 1) & mask;
+        }
+
+        int slot = index * slotBytes;
+        if (isFixedWidth()) {
+            put(slots, slot + PAYLOAD_OFFSET, key);
+            put(slots, slot + PAYLOAD_OFFSET + keyWidth, value);
+        } else {
+            //Append before marking the slot full, since appending may
+            //compact the arena by walking the full slots
+            slots.putInt(slot + PAYLOAD_OFFSET, appendRecord(key, value));
+        }
+        slots.putInt(slot + HASH_OFFSET, hash);
+        slots.put(slot, FULL);
+        size++;
+        return null;
+    }
+
+    @Override
+    public byte[] remove(byte[] key) {
+        int slot = find(key);
+        if (slot < 0) {
+            throw new NoSuchElementException("Key was not found in this "
+                    + "hashmap");
+        }
+        byte[] out = readValue(slot);
+        if (!isFixedWidth()) {
+            arenaGarbage += recordBytes(slots.getInt(slot + PAYLOAD_OFFSET));
+        }
+        shiftBackward(slot / slotBytes);
+        size--;
+
+        if (!isFixedWidth() && (arenaGarbage > arenaUsed / 2)) {
+            compactArena(arena.capacity());
+        }
+        return out;
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        int slot = find(key);
+        if (slot < 0) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return readValue(slot);
+    }
+
+    @Override
+    public boolean contains(byte[] key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        checkOpen();
+        free(slots);
+        slots = allocateSlots(Hashing.nextPowerOfTwo(STARTING_SIZE));
+        if (!isFixedWidth()) {
+            free(arena);
+            arena = ByteBuffer.allocateDirect(STARTING_ARENA_BYTES);
+            arenaUsed = 0;
+            arenaGarbage = 0;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a set of copies of the keys in this map. The set is a
+     * {@code java.util.HashSet}, so it compares the arrays by identity;
+     * use {@link #contains} to test for a key by content.
+     *
+     * @return set of copies of the keys in this map
+     */
+    @Override
+    public Set<byte[]> keySet() {
+        checkOpen();
+        Set<byte[]> keys = new HashSet<>();
+        for (int index = 0; index <= mask; index++) {
+            int slot = index * slotBytes;
+            if (slots.get(slot) == FULL) {
+                keys.add(readKey(slot));
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public List<byte[]> values() {
+        checkOpen();
+        List<byte[]> values = new ArrayList<>(size);
+        for (int index = 0; index <= mask; index++) {
+            int slot = index * slotBytes;
+            if (slots.get(slot) == FULL) {
+                values.add(readValue(slot));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Resize the table to {@code length} slots rounded up to a power of
+     * two, rehashing every entry. In length-prefixed mode the arena is
+     * compacted at the same time.
+     *
+     * @param length new minimum number of slots in the table
+     * @throws IllegalArgumentException if length is non-positive or less
+     * than the number of items in the hash map.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        checkOpen();
+        if ((length <= 0) || (length < size)) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        ByteBuffer old = slots;
+        int oldLength = mask + 1;
+
+        //Always leave at least one empty slot so probing terminates
+        slots = allocateSlots(Hashing.nextPowerOfTwo(
+                Math.max(length, size + 1)));
+
+        for (int i = 0; i < oldLength; i++) {
+            int from = i * slotBytes;
+            if (old.get(from) == FULL) {
+                int index = old.getInt(from + HASH_OFFSET) & mask;
+                while (slots.get(index * slotBytes) == FULL) {
+                    index = (index + 1) & mask;
+                }
+                copySlot(old, from, slots, index * slotBytes);
+            }
+        }
+        free(old);
+
+        if (!isFixedWidth() && (arenaGarbage > 0)) {
+            compactArena(arena.capacity());
+        }
+    }
+
+    /**
+     * Returns heap copies of the table's entries, in slot order. This is
+     * for testing only; the real table is in native memory.
+     *
+     * @return copies of the table's entries, including empty spaces
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public MapEntry<byte[], byte[]>[] getTable() {
+        checkOpen();
+        MapEntry<byte[], byte[]>[] table = new MapEntry[mask + 1];
+        for (int index = 0; index <= mask; index++) {
+            int slot = index * slotBytes;
+            if (slots.get(slot) == FULL) {
+                table[index] = new MapEntry<>(readKey(slot), readValue(slot));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns how many bytes of native memory the map holds.
+     *
+     * @return the capacity of the table and arena buffers in bytes
+     */
+    public long getOffHeapBytes() {
+        if (closed) {
+            return 0;
+        }
+        return slots.capacity() + (isFixedWidth() ? 0 : arena.capacity());
+    }
+
+    /**
+     * Returns an estimate of the heap memory the map holds. It does not grow
+     * with the number of entries.
+     *
+     * @return approximate heap footprint in bytes
+     */
+    public long getHeapBytes() {
+        return HEAP_OVERHEAD_BYTES;
+    }
+
+    /**
+     * Frees the native memory held by the map. Any later call other than
+     * {@code close}, {@link #size()} or the memory reports throws
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            free(slots);
+            slots = null;
+            if (arena != null) {
+                free(arena);
+                arena = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Private helper to find the slot holding a key.
+     *
+     * @param key the key to search for
+     * @return byte offset of the key's slot, or -1 if it is not in the map
+     */
+    private int find(byte[] key) {
+        checkOpen();
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        if (isFixedWidth() && (key.length != keyWidth)) {
+            return -1;
+        }
+        int hash = Hashing.hash(key);
+        int index = hash & mask;
+        while (slots.get(index * slotBytes) == FULL) {
+            int slot = index * slotBytes;
+            if ((slots.getInt(slot + HASH_OFFSET) == hash)
+                    && keyEquals(slot, key)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Private helper for backward-shift deletion. Empties the slot at
+     * {@code index} and pulls later entries of the same probe run back so
+     * that every remaining key is still reachable from its home slot.
+     *
+     * @param index the slot being removed
+     */
+    private void shiftBackward(int index) {
+        int last = index;
+        int current = (last + 1) & mask;
+        while (slots.get(current * slotBytes) == FULL) {
+            int home = slots.getInt(current * slotBytes + HASH_OFFSET) & mask;
+            if (((current - home) & mask) >= ((current - last) & mask)) {
+                copySlot(slots, current * slotBytes, slots, last * slotBytes);
+                last = current;
+            }
+            current = (current + 1) & mask;
+        }
+        slots.put(last * slotBytes, EMPTY);
+    }
+
+    /**
+     * Private helper to compare the key in a slot with a key on the heap.
+     *
+     * @param slot byte offset of the slot
+     * @param key the key to compare against
+     * @return true if the stored key has exactly these bytes
+     */
+    private boolean keyEquals(int slot, byte[] key) {
+        ByteBuffer source;
+        int start;
+        if (isFixedWidth()) {
+            source = slots;
+            start = slot + PAYLOAD_OFFSET;
+        } else {
+            int record = slots.getInt(slot + PAYLOAD_OFFSET);
+            if (arena.getInt(record) != key.length) {
+                return false;
+            }
+            source = arena;
+            start = record + 4;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (source.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Private helper to copy the key in a slot onto the heap.
+     *
+     * @param slot byte offset of the slot
+     * @return a copy of the key
+     */
+    private byte[] readKey(int slot) {
+        if (isFixedWidth()) {
+            return get(slots, slot + PAYLOAD_OFFSET, keyWidth);
+        }
+        int record = slots.getInt(slot + PAYLOAD_OFFSET);
+        return get(arena, record + 4, arena.getInt(record));
+    }
+
+    /**
+     * Private helper to copy the value in a slot onto the heap.
+     *
+     * @param slot byte offset of the slot
+     * @return a copy of the value
+     */
+    private byte[] readValue(int slot) {
+        if (isFixedWidth()) {
+            return get(slots, slot + PAYLOAD_OFFSET + keyWidth, valueWidth);
+        }
+        int record = slots.getInt(slot + PAYLOAD_OFFSET);
+        int valueAt = record + 4 + arena.getInt(record);
+        return get(arena, valueAt + 4, arena.getInt(valueAt));
+    }
+
+    /**
+     * Private helper to replace the value in an occupied slot. A
+     * length-prefixed value of a new length gets a fresh record.
+     *
+     * @param slot byte offset of the slot
+     * @param key the key already stored in the slot
+     * @param value the new value
+     */
+    private void writeValue(int slot, byte[] key, byte[] value) {
+        if (isFixedWidth()) {
+            put(slots, slot + PAYLOAD_OFFSET + keyWidth, value);
+            return;
+        }
+        int record = slots.getInt(slot + PAYLOAD_OFFSET);
+        int valueAt = record + 4 + key.length;
+        if (arena.getInt(valueAt) == value.length) {
+            put(arena, valueAt + 4, value);
+        } else {
+            //Append first: if that compacts the arena, the old record moves
+            int moved = appendRecord(key, value);
+            arenaGarbage += recordBytes(slots.getInt(slot + PAYLOAD_OFFSET));
+            slots.putInt(slot + PAYLOAD_OFFSET, moved);
+        }
+    }
+
+    /**
+     * Private helper to append a key-value record to the arena, growing or
+     * compacting it first if needed.
+     *
+     * @param key the key to store
+     * @param value the value to store
+     * @return offset of the new record in the arena
+     */
+    private int appendRecord(byte[] key, byte[] value) {
+        long needed = 8L + key.length + value.length;
+        if (arenaUsed + needed > arena.capacity()) {
+            long live = arenaUsed - arenaGarbage + needed;
+            long length = Math.max(live * 2, STARTING_ARENA_BYTES);
+            if (length > Integer.MAX_VALUE) {
+                if (live > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Arena would exceed "
+                            + "2GB.");
+                }
+                length = Integer.MAX_VALUE;
+            }
+            compactArena((int) length);
+        }
+        int record = arenaUsed;
+        arena.putInt(record, key.length);
+        put(arena, record + 4, key);
+        arena.putInt(record + 4 + key.length, value.length);
+        put(arena, record + 8 + key.length, value);
+        arenaUsed += (int) needed;
+        return record;
+    }
+
+    /**
+     * Private helper that copies every live record into a new arena of the
+     * given length and points the slots at the new copies.
+     *
+     * @param length length of the new arena in bytes
+     */
+    private void compactArena(int length) {
+        ByteBuffer old = arena;
+        arena = ByteBuffer.allocateDirect(length);
+        int used = 0;
+        for (int index = 0; index <= mask; index++) {
+            int slot = index * slotBytes;
+            if (slots.get(slot) == FULL) {
+                int record = slots.getInt(slot + PAYLOAD_OFFSET);
+                int bytes = recordBytes(old, record);
+                for (int i = 0; i < bytes; i++) {
+                    arena.put(used + i, old.get(record + i));
+                }
+                slots.putInt(slot + PAYLOAD_OFFSET, used);
+                used += bytes;
+            }
+        }
+        free(old);
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+
+    /**
+     * Private helper to measure a record in the current arena.
+     *
+     * @param record offset of the record
+     * @return length of the record in bytes
+     */
+    private int recordBytes(int record) {
+        return recordBytes(arena, record);
+    }
+
+    /**
+     * Private helper to measure a record.
+     *
+     * @param source the arena holding the record
+     * @param record offset of the record
+     * @return length of the record in bytes
+     */
+    private static int recordBytes(ByteBuffer source, int record) {
+        int keyLength = source.getInt(record);
+        return 8 + keyLength + source.getInt(record + 4 + keyLength);
+    }
+
+    /**
+     * Private helper to copy a whole slot between tables.
+     *
+     * @param from the table to copy from
+     * @param fromSlot byte offset of the source slot
+     * @param to the table to copy to
+     * @param toSlot byte offset of the destination slot
+     */
+    private void copySlot(ByteBuffer from, int fromSlot, ByteBuffer to,
+                          int toSlot) {
+        for (int i = 0; i < slotBytes; i++) {
+            to.put(toSlot + i, from.get(fromSlot + i));
+        }
+    }
+
+    /**
+     * Private helper to allocate an empty table.
+     *
+     * @param length number of slots, a power of two
+     * @return the zeroed table
+     */
+    private ByteBuffer allocateSlots(int length) {
+        if ((long) length * slotBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Table would exceed 2GB.");
+        }
+        mask = length - 1;
+        return ByteBuffer.allocateDirect(length * slotBytes);
+    }
+
+    /**
+     * Private helper to reject keys and values of the wrong width.
+     *
+     * @param key the key being added
+     * @param value the value being added
+     */
+    private void checkWidths(byte[] key, byte[] value) {
+        if (isFixedWidth() && ((key.length != keyWidth)
+                || (value.length != valueWidth))) {
+            throw new IllegalArgumentException("Keys must be " + keyWidth
+                    + " bytes and values " + valueWidth + " bytes.");
+        }
+    }
+
+    /**
+     * Private helper that rejects use after {@link #close()}.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Map has been closed.");
+        }
+    }
+
+    /**
+     * Private helper to tell the two storage modes apart.
+     *
+     * @return true if keys and values are stored inline in the slots
+     */
+    private boolean isFixedWidth() {
+        return keyWidth > 0;
+    }
+
+    /**
+     * Private helper to copy bytes out of a buffer.
+     *
+     * @param source the buffer to read
+     * @param offset where the bytes start
+     * @param length how many bytes to copy
+     * @return the copied bytes
+     */
+    private static byte[] get(ByteBuffer source, int offset, int length) {
+        byte[] out = new byte[length];
+        ByteBuffer view = source.duplicate();
+        view.position(offset);
+        view.get(out);
+        return out;
+    }
+
+    /**
+     * Private helper to copy bytes into a buffer.
+     *
+     * @param target the buffer to write
+     * @param offset where the bytes go
+     * @param bytes the bytes to copy
+     */
+    private static void put(ByteBuffer target, int offset, byte[] bytes) {
+        ByteBuffer view = target.duplicate();
+        view.position(offset);
+        view.put(bytes);
+    }
+
+    /**
+     * Private helper that frees a direct buffer right away when the JVM
+     * allows it, instead of waiting for the garbage collector.
+     *
+     * @param buffer the buffer to free, which must not be used again
+     */
+    private static void free(ByteBuffer buffer) {
+        if ((buffer == null) || (INVOKE_CLEANER == null)) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //Leave it to the garbage collector
+            return;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe HashMap built from independently locked segments.
+ * <p>
+ * The high bits of a key's mixed hash pick a segment, and the low bits
+ * pick the home slot inside that segment's linear-probing table. Writers
+ * lock only their own segment, so writes to different segments proceed
+ * in parallel. Readers never lock. Slots hold immutable nodes read with
+ * volatile semantics, and an update swaps in a whole new node.
+ * <p>
+ * Each segment grows on its own, under its own lock, by building a new
+ * table and publishing it with one volatile write. A resize therefore
+ * only blocks writers to that one segment. Readers keep probing the old
+ * table until the new one is published.
+ * <p>
+ * {@link #size()}, {@link #keySet()} and {@link #values()} are weakly
+ * consistent when the map is being modified concurrently.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class StripedHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * Number of segments used when no concurrency level is given.
+     */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * Fraction of a segment's table that may hold removed markers before the
+     * segment is rebuilt at the same length.
+     */
+    private static final double MAX_REMOVED_RATIO = 0.25;
+
+    /**
+     * Marker left in a slot whose entry was removed, so that probe runs
+     * passing through it stay intact for lock-free readers.
+     */
+    private static final Node<Object, Object> REMOVED = new Node<>(null, null);
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+
+    /**
+     * Create a map with no entries, {@code DEFAULT_CONCURRENCY_LEVEL}
+     * segments and a total capacity of at least {@code STARTING_SIZE}.
+     */
+    public StripedHashMap() {
+        this(STARTING_SIZE);
+    }
+
+    /**
+     * Create a map with no entries, {@code DEFAULT_CONCURRENCY_LEVEL}
+     * segments and a total capacity of at least {@code initialCapacity}.
+     *
+     * @param initialCapacity initial total capacity of the segments
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public StripedHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Create a map with no entries, a total capacity of at least
+     * {@code initialCapacity} and enough segments for
+     * {@code concurrencyLevel} concurrent writers, rounded up to a power of
+     * two.
+     *
+     * @param initialCapacity initial total capacity of the segments
+     * @param concurrencyLevel expected number of concurrent writers
+     * @throws IllegalArgumentException if either argument is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public StripedHashMap(int initialCapacity, int concurrencyLevel) {
+        if ((initialCapacity <= 0) || (concurrencyLevel <= 0)) {
+            throw new IllegalArgumentException("Initial capacity and "
+                    + "concurrency level must be positive.");
+        }
+        int segmentCount = Hashing.nextPowerOfTwo(
+                Math.min(concurrencyLevel, 1 << 16));
+        segments = new Segment[segmentCount];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+
+        int perSegment = segmentLength(initialCapacity);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Null value cannot be added.");
+        }
+        int hash = Hashing.mix(key.hashCode());
+        return segmentFor(hash).add(key, hash, value);
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = Hashing.mix(key.hashCode());
+        V out = segmentFor(hash).remove(key, hash);
+        if (out == null) {
+            throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this hashmap");
+        }
+        return out;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        int hash = Hashing.mix(key.hashCode());
+        V out = segmentFor(hash).get(key, hash);
+        if (out == null) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return out;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        int hash = Hashing.mix(key.hashCode());
+        return segmentFor(hash).get(key, hash) != null;
+    }
+
+    /**
+     * Clears every segment and resets the map to the default capacity.
+     * Segments are cleared one at a time, so concurrent writers to other
+     * segments are not blocked.
+     */
+    @Override
+    public void clear() {
+        int perSegment = segmentLength(STARTING_SIZE);
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                segment.rebuild(perSegment, true);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> tab = segment.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Node<K, V> node = tab.get(i);
+                if ((node != null) && (node != REMOVED)) {
+                    keys.add(node.key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> tab = segment.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Node<K, V> node = tab.get(i);
+                if ((node != null) && (node != REMOVED)) {
+                    values.add(node.value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Resize the map so that its segments have a total length of at least
+     * {@code length}. Each segment is resized under its own lock, one at a
+     * time.
+     *
+     * @param length new total length of the backing tables
+     * @throws IllegalArgumentException if length is non-positive or less
+     * than the number of items in the hash map.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        if ((length <= 0) || (length < size())) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        int perSegment = segmentLength(length);
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                //A segment can never shrink below what it currently holds
+                segment.rebuild(Math.max(perSegment,
+                        Hashing.nextPowerOfTwo(segment.count + 1)), false);
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the segment tables laid end to end. Unlike
+     * {@link HashMap#getTable()} this is not the live backing array, since
+     * the segments do not store {@link MapEntry} objects.
+     *
+     * @return a copy of the backing tables, including empty spaces
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public MapEntry<K, V>[] getTable() {
+        List<MapEntry<K, V>> slots = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> tab = segment.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Node<K, V> node = tab.get(i);
+                if ((node == null) || (node == REMOVED)) {
+                    slots.add(null);
+                } else {
+                    slots.add(new MapEntry<>(node.key, node.value));
+                }
+            }
+        }
+        return slots.toArray(new MapEntry[slots.size()]);
+    }
+
+    /**
+     * Private helper to pick the segment responsible for a hash.
+     *
+     * @param hash the mixed hash of a key
+     * @return the segment that owns the key
+     */
+    private Segment<K, V> segmentFor(int hash) {
+        //Shifting by 32 is a no-op in Java, which picks segment 0 correctly
+        //when there is only one segment
+        return segments[(hash >>> segmentShift) & (segments.length - 1)];
+    }
+
+    /**
+     * Private helper to split a total capacity across the segments.
+     *
+     * @param totalLength the requested total capacity
+     * @return the power-of-two length for each segment's table
+     */
+    private int segmentLength(int totalLength) {
+        int perSegment = (totalLength + segments.length - 1) / segments.length;
+        return Hashing.nextPowerOfTwo(Math.max(perSegment, 2));
+    }
+
+    /**
+     * An immutable key-value pair stored in a segment's table. Because its
+     * fields are final, a reader that sees the node also sees its contents.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+
+        /**
+         * Create a node.
+         *
+         * @param key the key of the node
+         * @param value the value of the node
+         */
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * One lock stripe of the map: a linear-probing table with its own lock.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile AtomicReferenceArray<Node<K, V>> table;
+        private volatile int count;
+        private int removed;
+
+        /**
+         * Create an empty segment.
+         *
+         * @param length length of the segment's table, a power of two
+         */
+        private Segment(int length) {
+            table = new AtomicReferenceArray<>(length);
+        }
+
+        /**
+         * Looks up a key without locking.
+         *
+         * @param key the key to search for
+         * @param hash the mixed hash of the key
+         * @return the value of the key, or null if it is not in the segment
+         */
+        private V get(K key, int hash) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int mask = tab.length() - 1;
+            int index = hash & mask;
+
+            for (int i = 0; i <= mask; i++) {
+                Node<K, V> node = tab.get(index);
+                if (node == null) {
+                    return null;
+                }
+                if ((node != REMOVED) && node.key.equals(key)) {
+                    return node.value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Adds or replaces a key under the segment lock.
+         *
+         * @param key the key to add
+         * @param hash the mixed hash of the key
+         * @param value the value to add
+         * @return the old value of the key, or null if it was not present
+         */
+        private V add(K key, int hash, V value) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                if ((double) (count + removed + 1) / tab.length()
+                        > MAX_LOAD_FACTOR) {
+                    //Only grow when live entries need the room, otherwise
+                    //dropping the removed markers is enough
+                    boolean grow = (double) (count + 1) / tab.length()
+                            > MAX_LOAD_FACTOR / 2;
+                    rebuild(grow ? tab.length() * 2 : tab.length(), false);
+                    tab = table;
+                }
+
+                int mask = tab.length() - 1;
+                int index = hash & mask;
+                int firstRemoved = -1;
+                Node<K, V> node = tab.get(index);
+
+                while (node != null) {
+                    if (node == REMOVED) {
+                        if (firstRemoved < 0) {
+                            firstRemoved = index;
+                        }
+                    } else if (node.key.equals(key)) {
+                        tab.set(index, new Node<>(key, value));
+                        return node.value;
+                    }
+                    index = (index + 1) & mask;
+                    node = tab.get(index);
+                }
+
+                if (firstRemoved >= 0) {
+                    index = firstRemoved;
+                    removed--;
+                }
+                tab.set(index, new Node<>(key, value));
+                count++;
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Removes a key under the segment lock.
+         *
+         * @param key the key to remove
+         * @param hash the mixed hash of the key
+         * @return the removed value, or null if the key was not present
+         */
+        @SuppressWarnings("unchecked")
+        private V remove(K key, int hash) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int mask = tab.length() - 1;
+                int index = hash & mask;
+                Node<K, V> node = tab.get(index);
+
+                while (node != null) {
+                    if ((node != REMOVED) && node.key.equals(key)) {
+                        tab.set(index, (Node<K, V>) (Node<?, ?>) REMOVED);
+                        count--;
+                        removed++;
+                        if (removed > tab.length() * MAX_REMOVED_RATIO) {
+                            rebuild(tab.length(), false);
+                        }
+                        return node.value;
+                    }
+                    index = (index + 1) & mask;
+                    node = tab.get(index);
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Builds a new table of the given length and publishes it. Must be
+         * called with the segment lock held.
+         *
+         * @param length length of the new table, a power of two
+         * @param empty true to drop every entry, false to copy live entries
+         */
+        private void rebuild(int length, boolean empty) {
+            AtomicReferenceArray<Node<K, V>> old = table;
+            AtomicReferenceArray<Node<K, V>> tab =
+                    new AtomicReferenceArray<>(length);
+            int mask = length - 1;
+
+            if (!empty) {
+                for (int i = 0; i < old.length(); i++) {
+                    Node<K, V> node = old.get(i);
+                    if ((node != null) && (node != REMOVED)) {
+                        int index = Hashing.mix(node.key.hashCode()) & mask;
+                        while (tab.get(index) != null) {
+                            index = (index + 1) & mask;
+                        }
+                        tab.set(index, node);
+                    }
+                }
+            } else {
+                count = 0;
+            }
+            removed = 0;
+            table = tab;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A HashMap laid out like a Swiss table, so most slots are rejected without
+ * loading their entries or calling {@code equals}.
+ * <p>
+ * Slots come in groups of {@code GROUP_SIZE}. Next to the entries, every
+ * slot has a control byte: {@code EMPTY}, {@code DELETED}, or for a full
+ * slot the low 7 bits of its key's mixed hash. A group's control bytes are
+ * packed into one long, so a lookup compares its 7-bit tag against all of
+ * them with a handful of word operations (SWAR, SIMD within a register) and
+ * only calls {@code equals} on slots whose tag matches. With 7-bit tags,
+ * about one full slot in 128 matches by chance.
+ * <p>
+ * The remaining hash bits pick the first group. Groups are probed with
+ * triangular steps, which visit every group of a power-of-two table, and a
+ * lookup stops at the first group that has an empty slot. Removing from a
+ * group that still has an empty slot frees the slot outright, since no
+ * probe can have gone past that group; otherwise it is marked
+ * {@code DELETED}.
+ * <p>
+ * Because a miss usually costs one word compare per group, this map stays
+ * fast at load factors where linear probing does not. The load factor,
+ * counting deleted slots, is configurable.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Nishant Roy
+ * @version 1.0
+ */
+public class SwissHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * Slots per group, one control byte each in a long.
+     */
+    private static final int GROUP_SIZE = 8;
+
+    /**
+     * Load factor used when none is given.
+     */
+    private static final double DEFAULT_LOAD_FACTOR = 0.875;
+
+    /**
+     * Control byte of a slot that has never been used since the last
+     * rebuild. Only its high bit is set.
+     */
+    private static final int EMPTY = 0x80;
+
+    /**
+     * Control byte of a slot whose entry was removed. Its high bit is set,
+     * and unlike {@code EMPTY} so is bit 6.
+     */
+    private static final int DELETED = 0xFE;
+
+    /**
+     * Control word of a group with every slot empty.
+     */
+    private static final long ALL_EMPTY = 0x8080808080808080L;
+
+    /**
+     * The low bit of every byte of a word.
+     */
+    private static final long LSB = 0x0101010101010101L;
+
+    /**
+     * The high bit of every byte of a word.
+     */
+    private static final long MSB = 0x8080808080808080L;
+
+    private MapEntry<K, V>[] table;
+    private long[] control;
+    private int groupMask;
+    private int size;
+    private int deletedCount;
+    private int maxUsed;
+    private final double loadFactor;
+
+    /**
+     * Create a map with no entries and room for at least
+     * {@code STARTING_SIZE} entries.
+     */
+    public SwissHashMap() {
+        this(STARTING_SIZE);
+    }
+
+    /**
+     * Create a map with no entries and room for at least
+     * {@code initialCapacity} entries.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @throws IllegalArgumentException if initialCapacity is not positive
+     */
+    public SwissHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a map with no entries, room for at least
+     * {@code initialCapacity} entries, that regrows once live and deleted
+     * slots together pass {@code loadFactor} of the table.
+     *
+     * @param initialCapacity initial capacity of the table
+     * @param loadFactor the maximum fraction of used slots, greater than 0
+     * and less than 1
+     * @throws IllegalArgumentException if initialCapacity is not positive or
+     * loadFactor is out of range
+     */
+    public SwissHashMap(int initialCapacity, double loadFactor) {
+        if ((initialCapacity <= 0) || !(loadFactor > 0)
+                || !(loadFactor < 1)) {
+            throw new IllegalArgumentException("Initial capacity must be "
+                    + "positive and load factor between 0 and 1.");
+        }
+        this.loadFactor = loadFactor;
+        allocate(groupsFor(initialCapacity));
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Null value cannot be added.");
+        }
+
+        //Deleted slots still lengthen probes, so they count toward the load
+        if (size + deletedCount + 1 > maxUsed) {
+            //Mostly deleted slots, so rebuilding at the same size is enough
+            int groups = (size + 1 <= maxUsed / 2)
+                    ? groupMask + 1 : (groupMask + 1) * 2;
+            rebuild(groups);
+        }
+
+        int h = hash(key);
+        int slot = find(key, h);
+        if (slot >= 0) {
+            V out = table[slot].getValue();
+            table[slot].setValue(value);
+            return out;
+        }
+
+        slot = freeSlot(h);
+        if (controlAt(slot) == DELETED) {
+            deletedCount--;
+        }
+        table[slot] = new MapEntry<>(key, value);
+        setControl(slot, h & 0x7F);
+        size++;
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("Key : <" + key
+                    + "> was not found in this hashmap");
+        }
+        V out = table[slot].getValue();
+        table[slot] = null;
+        size--;
+
+        //A group with an empty slot ends every probe that reaches it, so
+        //nothing can depend on this slot staying occupied
+        if (matchEmpty(control[slot / GROUP_SIZE]) != 0) {
+            setControl(slot, EMPTY);
+        } else {
+            setControl(slot, DELETED);
+            deletedCount++;
+        }
+        return out;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("The hashmap does not"
+                    + " contain that key.");
+        }
+        return table[slot].getValue();
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        return find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        allocate(groupsFor(STARTING_SIZE));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        for (MapEntry<K, V> entry : table) {
+            if (entry != null) {
+                values.add(entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Resize the table to at least {@code length} slots, rounded up to a
+     * power of two number of groups, and rehash every entry. The table
+     * always keeps at least one empty slot so that probes end.
+     *
+     * @param length new minimum length of the backing table
+     * @throws IllegalArgumentException if length is non-positive or less
+     * than the number of items in the hash map.
+     */
+    @Override
+    public void resizeBackingTable(int length) {
+        if ((length <= 0) || (length < size)) {
+            throw new IllegalArgumentException("Length was not positive or"
+                    + " was less than the size of the hashmap");
+        }
+        int slots = Math.max(length, size + 1);
+        rebuild(Hashing.nextPowerOfTwo(
+                (slots + GROUP_SIZE - 1) / GROUP_SIZE));
+    }
+
+    /**
+     * Returns the backing table. Group {@code g} occupies slots
+     * {@code g * GROUP_SIZE} up to {@code (g + 1) * GROUP_SIZE}.
+     *
+     * @return the backing array of the data structure, not a copy
+     */
+    @Override
+    public MapEntry<K, V>[] getTable() {
+        return table;
+    }
+
+    /**
+     * Private helper to find the slot holding a key.
+     *
+     * @param key the key to search for
+     * @param h the key's hash from {@link #hash}
+     * @return slot of the key in the table, or -1 if it is not there
+     */
+    private int find(K key, int h) {
+        long pattern = LSB * (h & 0x7F);
+        int group = (h >>> 7) & groupMask;
+
+        for (int step = 1; step <= groupMask + 1; step++) {
+            long word = control[group];
+            long matches = matchTag(word, pattern);
+            while (matches != 0) {
+                int slot = group * GROUP_SIZE
+                        + (Long.numberOfTrailingZeros(matches) >>> 3);
+                MapEntry<K, V> entry = table[slot];
+                if ((entry != null) && entry.getKey().equals(key)) {
+                    return slot;
+                }
+                matches &= matches - 1;
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            group = (group + step) & groupMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Private helper to find the first empty or deleted slot along a hash's
+     * probe sequence.
+     *
+     * @param h the hash from {@link #hash}
+     * @return a slot that can take a new entry
+     */
+    private int freeSlot(int h) {
+        int group = (h >>> 7) & groupMask;
+        for (int step = 1;; step++) {
+            long free = control[group] & MSB;
+            if (free != 0) {
+                return group * GROUP_SIZE
+                        + (Long.numberOfTrailingZeros(free) >>> 3);
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * Private helper that marks the bytes of a control word equal to a tag.
+     * Subtracting 1 from each byte of {@code word ^ pattern} only sets the
+     * high bit of the bytes that were zero, plus at worst a byte just above
+     * one of those, whose entry is full and weeded out by {@code equals}.
+     * Empty and deleted bytes never match, since their high bit is set and
+     * tags never have it.
+     *
+     * @param word the control word of a group
+     * @param pattern the tag repeated in every byte
+     * @return the high bit of every matching byte
+     */
+    private static long matchTag(long word, long pattern) {
+        long x = word ^ pattern;
+        return (x - LSB) & ~x & MSB;
+    }
+
+    /**
+     * Private helper that marks the empty bytes of a control word: those
+     * with the high bit set and bit 6 clear.
+     *
+     * @param word the control word of a group
+     * @return the high bit of every empty byte
+     */
+    private static long matchEmpty(long word) {
+        return word & ~(word << 1) & MSB;
+    }
+
+    /**
+     * Private helper to read the control byte of a slot.
+     *
+     * @param slot the slot to read
+     * @return the control byte, between 0 and 255
+     */
+    private int controlAt(int slot) {
+        int shift = (slot % GROUP_SIZE) * 8;
+        return (int) (control[slot / GROUP_SIZE] >>> shift) & 0xFF;
+    }
+
+    /**
+     * Private helper to write the control byte of a slot.
+     *
+     * @param slot the slot to write
+     * @param value the control byte
+     */
+    private void setControl(int slot, int value) {
+        int group = slot / GROUP_SIZE;
+        int shift = (slot % GROUP_SIZE) * 8;
+        control[group] = (control[group] & ~(0xFFL << shift))
+                | ((long) value << shift);
+    }
+
+    /**
+     * Private helper that reinserts every entry into a fresh table, which
+     * drops every deleted slot.
+     *
+     * @param groups the number of groups of the new table, a power of two
+     */
+    private void rebuild(int groups) {
+        MapEntry<K, V>[] old = table;
+        allocate(groups);
+        for (MapEntry<K, V> entry : old) {
+            if (entry != null) {
+                int h = hash(entry.getKey());
+                int slot = freeSlot(h);
+                table[slot] = entry;
+                setControl(slot, h & 0x7F);
+            }
+        }
+    }
+
+    /**
+     * Private helper that replaces the table with an empty one.
+     *
+     * @param groups the number of groups, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int groups) {
+        int length = groups * GROUP_SIZE;
+        table = new MapEntry[length];
+        control = new long[groups];
+        Arrays.fill(control, ALL_EMPTY);
+        groupMask = groups - 1;
+        deletedCount = 0;
+        //Leave at least one slot empty so that every probe ends
+        maxUsed = Math.min((int) (length * loadFactor), length - 1);
+    }
+
+    /**
+     * Private helper to hash a key. The low 7 bits become the tag and the
+     * rest pick the first group, so the hash code is mixed first.
+     *
+     * @param key the key to hash
+     * @return the mixed hash
+     */
+    private static int hash(Object key) {
+        return Hashing.mix(key.hashCode());
+    }
+
+    /**
+     * Private helper to compute the number of groups needed to hold
+     * {@code capacity} entries under the load factor.
+     *
+     * @param capacity the number of entries to hold
+     * @return a power of two number of groups
+     */
+    private int groupsFor(int capacity) {
+        long slots = (long) Math.ceil(capacity / loadFactor) + 1;
+        long groups = (slots + GROUP_SIZE - 1) / GROUP_SIZE;
+        return Hashing.nextPowerOfTwo((int) Math.min(groups,
+                Hashing.MAX_POWER_OF_TWO / GROUP_SIZE));
+    }
+}